@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure la lecture des images d'origine embarquées dans l'application (assets/*_original.png) : la lecture octet par octet de l'ancien App.loadOriginalImg face à la lecture en bloc de {@link Assets#read(String)} et au cache de {@link Assets#original(String)}.
+ * Usage : ant bench -Dbench.include=AssetBenchmark
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AssetBenchmark {
+    
+    
+    
+//ATTRIBUT
+    /**
+     * L'image d'origine lue
+     */
+    @Param({"batteryempty", "poweroff", "rebooting", "sleeping", "suspended"})
+    public String slot;
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Lit la ressource octet par octet dans un ByteArrayOutputStream, comme le faisait App.loadOriginalImg.
+     * @return Les données de la ressource
+     * @throws java.io.IOException Si la ressource ne peut pas être lue
+     */
+    @Benchmark
+    public byte[] byteByByte() throws java.io.IOException {
+        java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
+        try (java.io.BufferedInputStream bis = new java.io.BufferedInputStream(App.class.getResourceAsStream(path()))) {
+            int value;
+            while ((value = bis.read()) > -1)
+                baos.write(value);
+        }
+        return baos.toByteArray();
+    }
+
+    /**
+     * Lit la ressource en bloc avec {@link java.io.InputStream#readAllBytes()}.
+     * @return Les données de la ressource
+     * @throws java.io.IOException Si la ressource ne peut pas être lue
+     */
+    @Benchmark
+    public byte[] readAllBytes() throws java.io.IOException {
+        try (java.io.InputStream is = App.class.getResourceAsStream(path())) {
+            return is.readAllBytes();
+        }
+    }
+
+    /**
+     * Lit la ressource en bloc dans un tableau de la taille exacte de la ressource, comme le fait {@link Assets#read(String)}.
+     * @return Les données de la ressource
+     * @throws java.io.IOException Si la ressource ne peut pas être lue
+     */
+    @Benchmark
+    public byte[] exactSize() throws java.io.IOException {
+        return Assets.read(path());
+    }
+
+    /**
+     * Renvoie l'image d'origine depuis le cache de {@link Assets#original(String)}, comme le fait le bouton Default une fois les images préchargées.
+     * @return Les données de la ressource
+     * @throws java.io.IOException Si la ressource ne peut pas être lue
+     */
+    @Benchmark
+    public byte[] cached() throws java.io.IOException {
+        return Assets.original(slot);
+    }
+    
+    
+    
+//METHODE PRIVATE
+    /**
+     * Renvoie le chemin de la ressource lue.
+     * @return Le chemin de la ressource
+     */
+    private String path() {
+        return "/com/jasonpercus/remarkable/assets/" + slot + "_original.png";
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure la connexion, les téléchargements et les téléversements de {@link Connection} face à une {@link FakeTablet} démarrée dans le même processus, qui sert les images du dossier MyScreens sous /usr/share/remarkable.
+ * Sans latence ni limite de débit, ce sont les coûts propres au client (chiffrement, canaux, recopies) qui sont mesurés ; les paramètres latency et bandwidth reproduisent un lien Wi-Fi ou USB.
+ * Usage : ant bench -Dbench.include=ConnectionBenchmark -Dbench.args="-p latency=5 -p bandwidth=2000000"
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConnectionBenchmark {
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * La latence ajoutée dans chaque sens (en millisecondes)
+     */
+    @Param({"0"})
+    public long latency;
+
+    /**
+     * Le débit maximum dans chaque sens (en octets par seconde), ou 0 pour un débit illimité
+     */
+    @Param({"0"})
+    public long bandwidth;
+
+    /**
+     * La tablette simulée
+     */
+    private FakeTablet tablet;
+
+    /**
+     * La connexion à la tablette simulée
+     */
+    private Connection connection;
+
+    /**
+     * Les chemins des images système sur la tablette simulée
+     */
+    private java.util.List<String> paths;
+
+    /**
+     * Les données téléversées
+     */
+    private byte[] datas;
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Démarre la tablette simulée, y installe les images du dossier MyScreens et s'y connecte.
+     * @throws java.io.IOException Si la tablette simulée ne peut pas être démarrée
+     */
+    @Setup
+    public void setup() throws java.io.IOException {
+        this.tablet = new FakeTablet();
+        this.tablet.install(java.nio.file.Paths.get("MyScreens"));
+        this.tablet.setLatency(latency);
+        this.tablet.setBandwidth(bandwidth);
+        this.paths = new java.util.ArrayList<>();
+        try (java.nio.file.DirectoryStream<java.nio.file.Path> stream = java.nio.file.Files.newDirectoryStream(java.nio.file.Paths.get("MyScreens"), "*.png")) {
+            for (java.nio.file.Path png : stream)
+                this.paths.add(FakeTablet.REMOTE_DIRECTORY + png.getFileName());
+        }
+        java.util.Collections.sort(this.paths);
+        this.datas = java.nio.file.Files.readAllBytes(this.tablet.file(this.paths.get(0)));
+
+        this.connection = newConnection();
+        this.connection.setSkipUnchanged(false);
+        if (!this.connection.connect())
+            throw new java.io.IOException("Unable to connect to the fake tablet !");
+    }
+
+    /**
+     * Ferme la connexion et arrête la tablette simulée.
+     * @throws java.io.IOException Si la tablette simulée ne peut pas être arrêtée
+     */
+    @TearDown
+    public void tearDown() throws java.io.IOException {
+        this.connection.disconnect();
+        this.tablet.close();
+    }
+
+    /**
+     * Établit puis ferme une connexion (poignée de main SSH, authentification et ouverture du canal SFTP).
+     * @return True si la connexion a été établie
+     */
+    @Benchmark
+    public boolean connect() {
+        Connection c = newConnection();
+        boolean connected = c.connect();
+        c.disconnect();
+        return connected;
+    }
+
+    /**
+     * Télécharge une image système (2 Mo) sur le canal SFTP principal.
+     * @return Les données de l'image
+     */
+    @Benchmark
+    public byte[] download() {
+        return this.connection.download(this.paths.get(0));
+    }
+
+    /**
+     * Télécharge toutes les images système une à une sur le canal SFTP principal.
+     * @return Le nombre d'octets téléchargés
+     */
+    @Benchmark
+    public long downloadSequential() {
+        long size = 0;
+        for (String path : this.paths)
+            size += this.connection.download(path).length;
+        return size;
+    }
+
+    /**
+     * Télécharge toutes les images système simultanément, chacune sur son propre canal SFTP.
+     * @return Le nombre d'octets téléchargés
+     */
+    @Benchmark
+    public long downloadParallel() {
+        long size = 0;
+        for (byte[] datas : this.connection.download(this.paths, null).values())
+            size += datas.length;
+        return size;
+    }
+
+    /**
+     * Téléverse une image système (2 Mo) vérifiée par somme de contrôle calculée sur la tablette.
+     * @return True si le téléversement est réussi
+     */
+    @Benchmark
+    public boolean uploadChecksum() {
+        return this.connection.upload(this.datas, this.paths.get(0), Connection.Verification.CHECKSUM);
+    }
+
+    /**
+     * Téléverse une image système (2 Mo) vérifiée en la re-téléchargeant.
+     * @return True si le téléversement est réussi
+     */
+    @Benchmark
+    public boolean uploadDownload() {
+        return this.connection.upload(this.datas, this.paths.get(0), Connection.Verification.DOWNLOAD);
+    }
+    
+    
+    
+//METHODE PRIVATE
+    /**
+     * Crée une connexion (non établie) à la tablette simulée.
+     * @return La connexion
+     */
+    private Connection newConnection() {
+        return new Connection("root", FakeTablet.PASSWORD, "127.0.0.1", this.tablet.getPort(), () -> {});
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,163 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure le délai de détection d'une déconnexion par le moniteur de {@link Connection} : du défaut réseau provoqué sur une {@link FakeTablet} jusqu'à l'appel de {@link Connection.DisconnectionListener#reconnecting()}.
+ * DROP coupe les connexions (la fin du flux est vue immédiatement), FREEZE gèle le trafic comme un câble débranché (seuls les keep-alive sans réponse permettent la détection, ce qui prend plusieurs dizaines de secondes).
+ * Usage : ant bench -Dbench.include=DisconnectBenchmark -Dbench.args="-p mode=DROP,FREEZE"
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class DisconnectBenchmark {
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * Le défaut réseau provoqué
+     */
+    @Param({"DROP"})
+    public Fault mode;
+
+    /**
+     * La tablette simulée
+     */
+    private FakeTablet tablet;
+
+    /**
+     * La connexion à la tablette simulée
+     */
+    private Connection connection;
+
+    /**
+     * Le verrou libéré lorsque la déconnexion est détectée
+     */
+    private java.util.concurrent.CountDownLatch detected;
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Démarre la tablette simulée.
+     * @throws java.io.IOException Si la tablette simulée ne peut pas être démarrée
+     */
+    @Setup(Level.Trial)
+    public void start() throws java.io.IOException {
+        this.tablet = new FakeTablet();
+    }
+
+    /**
+     * Arrête la tablette simulée.
+     * @throws java.io.IOException Si la tablette simulée ne peut pas être arrêtée
+     */
+    @TearDown(Level.Trial)
+    public void stop() throws java.io.IOException {
+        this.tablet.close();
+    }
+
+    /**
+     * Établit une nouvelle connexion avant chaque mesure.
+     * @throws java.io.IOException Si la connexion ne peut pas être établie
+     */
+    @Setup(Level.Iteration)
+    public void connect() throws java.io.IOException {
+        this.detected   = new java.util.concurrent.CountDownLatch(1);
+        this.connection = new Connection("root", FakeTablet.PASSWORD, "127.0.0.1", this.tablet.getPort(), new Connection.DisconnectionListener() {
+            @Override
+            public void disconnected() {
+                detected.countDown();
+            }
+
+            @Override
+            public void reconnecting() {
+                detected.countDown();
+            }
+        });
+        if (!this.connection.connect())
+            throw new java.io.IOException("Unable to connect to the fake tablet !");
+    }
+
+    /**
+     * Rétablit le trafic et ferme la connexion après chaque mesure.
+     */
+    @TearDown(Level.Iteration)
+    public void disconnect() {
+        this.tablet.setFrozen(false);
+        this.connection.disconnect();
+        this.tablet.disconnect();
+    }
+
+    /**
+     * Provoque le défaut réseau et attend que le moniteur de la connexion le détecte.
+     * @throws InterruptedException Si le thread est interrompu
+     */
+    @Benchmark
+    public void detect() throws InterruptedException {
+        if (mode == Fault.FREEZE)
+            this.tablet.setFrozen(true);
+        else
+            this.tablet.disconnect();
+        this.detected.await();
+    }
+    
+    
+    
+//ENUM
+    /**
+     * Cette énumération liste les défauts réseau provoqués
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public enum Fault {
+    
+    
+    
+    //CONSTANTES
+        /**
+         * Les connexions sont coupées
+         */
+        DROP,
+
+        /**
+         * Le trafic est gelé
+         */
+        FREEZE;
+    
+    
+    
+    }
+
+
+
+}
\ No newline at end of file
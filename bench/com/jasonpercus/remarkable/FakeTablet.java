@@ -0,0 +1,607 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import org.apache.sshd.common.file.virtualfs.VirtualFileSystemFactory;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SshServer;
+import org.apache.sshd.server.channel.ChannelSession;
+import org.apache.sshd.server.command.Command;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.sftp.server.SftpSubsystemFactory;
+
+
+
+/**
+ * La classe FakeTablet simule une tablette Remarkable 2 sur la machine locale, afin de tester et de mesurer {@link Connection} sans tablette physique.
+ * Elle démarre dans le processus courant un serveur SSH/SFTP (Apache MINA SSHD) dont la racine contient une arborescence /usr/share/remarkable peuplée des images d'origine de l'application. Les commandes sha256sum et md5sum sont émulées pour la vérification par somme de contrôle.
+ * Les clients ne s'adressent pas directement au serveur mais à un relais TCP qui permet d'injecter des défauts réseau : latence, débit maximum, gel du trafic (câble débranché), coupure des connexions et refus des nouvelles connexions (tablette éteinte).
+ * Usage autonome : java -cp ... com.jasonpercus.remarkable.FakeTablet [port] (mot de passe : {@link #PASSWORD})
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class FakeTablet implements AutoCloseable {
+    
+    
+    
+//CONSTANTES
+    /**
+     * Le mot de passe accepté par la tablette simulée (quel que soit l'utilisateur)
+     */
+    public final static String PASSWORD = "remarkable";
+
+    /**
+     * Le dossier des images système sur la tablette
+     */
+    public final static String REMOTE_DIRECTORY = Slot.REMOTE_DIRECTORY;
+
+    /**
+     * La taille des blocs relayés entre le client et le serveur
+     */
+    private final static int CHUNK = 32 * 1024;
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * Le dossier local servant de racine au serveur
+     */
+    private final java.nio.file.Path root;
+
+    /**
+     * Le serveur SSH/SFTP
+     */
+    private final SshServer server;
+
+    /**
+     * La socket d'écoute du relais TCP
+     */
+    private final java.net.ServerSocket relay;
+
+    /**
+     * Les connexions en cours à travers le relais
+     */
+    private final java.util.Set<Link> links;
+
+    /**
+     * La latence ajoutée dans chaque sens (en millisecondes)
+     */
+    private volatile long latency;
+
+    /**
+     * Le débit maximum dans chaque sens (en octets par seconde), ou 0 pour un débit illimité
+     */
+    private volatile long bandwidth;
+
+    /**
+     * Détermine si le trafic est gelé
+     */
+    private volatile boolean frozen;
+
+    /**
+     * Détermine si les nouvelles connexions sont refusées
+     */
+    private volatile boolean refusing;
+    
+    
+    
+//CONSTRUCTORS
+    /**
+     * Démarre une tablette simulée sur un port libre.
+     * @throws java.io.IOException Si le serveur ne peut pas être démarré
+     */
+    public FakeTablet() throws java.io.IOException {
+        this(0);
+    }
+
+    /**
+     * Démarre une tablette simulée.
+     * @param port Le port d'écoute (0 pour un port libre)
+     * @throws java.io.IOException Si le serveur ne peut pas être démarré
+     */
+    public FakeTablet(int port) throws java.io.IOException {
+        this.root = java.nio.file.Files.createTempDirectory("remarkable");
+        java.nio.file.Path directory = java.nio.file.Files.createDirectories(this.root.resolve(REMOTE_DIRECTORY.substring(1)));
+        for (Slot slot : Slot.values())
+            java.nio.file.Files.write(directory.resolve(slot.getFileName()), slot.getOriginal());
+
+        this.server = SshServer.setUpDefaultServer();
+        this.server.setHost("127.0.0.1");
+        this.server.setPort(0);
+        this.server.setKeyPairProvider(new SimpleGeneratorHostKeyProvider());
+        this.server.setPasswordAuthenticator((String username, String password, org.apache.sshd.server.session.ServerSession session) -> PASSWORD.equals(password));
+        this.server.setFileSystemFactory(new VirtualFileSystemFactory(this.root));
+        this.server.setSubsystemFactories(java.util.Collections.singletonList(new SftpSubsystemFactory()));
+        this.server.setCommandFactory((ChannelSession channel, String command) -> new DigestCommand(command));
+        this.server.start();
+
+        this.links = java.util.concurrent.ConcurrentHashMap.newKeySet();
+        this.relay = new java.net.ServerSocket(port, 50, java.net.InetAddress.getLoopbackAddress());
+        daemon("FakeTablet Relay", this::accept).start();
+    }
+    
+    
+    
+//MAIN
+    /**
+     * Démarre une tablette simulée jusqu'à l'arrêt du processus
+     * @param args Correspond au port d'écoute (par défaut un port libre)
+     * @throws java.io.IOException Si le serveur ne peut pas être démarré
+     * @throws InterruptedException Si le thread est interrompu
+     */
+    public static void main(String[] args) throws java.io.IOException, InterruptedException {
+        try (FakeTablet tablet = new FakeTablet(args.length > 0 ? Integer.parseInt(args[0]) : 0)) {
+            System.out.println("Fake tablet listening on 127.0.0.1:" + tablet.getPort() + " (password: " + PASSWORD + ")");
+            Thread.sleep(Long.MAX_VALUE);
+        }
+    }
+    
+    
+    
+//GETTERS
+    /**
+     * Renvoie le port auquel se connecter.
+     * @return Le port du relais
+     */
+    public int getPort() {
+        return this.relay.getLocalPort();
+    }
+
+    /**
+     * Renvoie le dossier local servant de racine à la tablette simulée.
+     * @return La racine de la tablette simulée
+     */
+    public java.nio.file.Path getRoot() {
+        return this.root;
+    }
+
+    /**
+     * Renvoie le nombre de connexions en cours à travers le relais.
+     * @return Le nombre de connexions en cours
+     */
+    public int getLinks() {
+        return this.links.size();
+    }
+    
+    
+    
+//SETTERS
+    /**
+     * Modifie la latence ajoutée dans chaque sens (un aller-retour coûte donc deux fois cette latence).
+     * @param latency La latence (en millisecondes)
+     */
+    public void setLatency(long latency) {
+        this.latency = Math.max(0, latency);
+    }
+
+    /**
+     * Modifie le débit maximum dans chaque sens.
+     * @param bandwidth Le débit maximum (en octets par seconde), ou 0 pour un débit illimité
+     */
+    public void setBandwidth(long bandwidth) {
+        this.bandwidth = Math.max(0, bandwidth);
+    }
+
+    /**
+     * Gèle ou dégèle le trafic. Gelées, les connexions restent ouvertes mais plus aucun octet ne passe, comme lorsque le câble est débranché : seuls les keep-alive permettent alors de détecter la perte de la tablette.
+     * @param frozen True pour geler le trafic, false pour le rétablir
+     */
+    public void setFrozen(boolean frozen) {
+        this.frozen = frozen;
+    }
+
+    /**
+     * Refuse ou accepte les nouvelles connexions, comme une tablette éteinte ou rallumée.
+     * @param refusing True pour refuser les nouvelles connexions, false pour les accepter
+     */
+    public void setRefusing(boolean refusing) {
+        this.refusing = refusing;
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Coupe brutalement toutes les connexions en cours (la tablette reste joignable pour une reconnexion).
+     */
+    public void disconnect() {
+        for (Link link : this.links)
+            link.close();
+    }
+
+    /**
+     * Copie des images sur la tablette simulée.
+     * @param directory Le dossier local dont les fichiers PNG sont copiés dans /usr/share/remarkable (en remplaçant les fichiers existants)
+     * @throws java.io.IOException Si les fichiers ne peuvent pas être copiés
+     */
+    public void install(java.nio.file.Path directory) throws java.io.IOException {
+        try (java.nio.file.DirectoryStream<java.nio.file.Path> stream = java.nio.file.Files.newDirectoryStream(directory, "*.png")) {
+            for (java.nio.file.Path png : stream)
+                java.nio.file.Files.copy(png, file(REMOTE_DIRECTORY + png.getFileName()), java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Renvoie le fichier local correspondant à un chemin de la tablette simulée.
+     * @param path Le chemin sur la tablette (ex: /usr/share/remarkable/sleeping.png)
+     * @return Le fichier local correspondant
+     */
+    public java.nio.file.Path file(String path) {
+        return this.root.resolve(path.startsWith("/") ? path.substring(1) : path);
+    }
+
+    /**
+     * Arrête la tablette simulée et supprime sa racine.
+     * @throws java.io.IOException Si le serveur ne peut pas être arrêté ou la racine supprimée
+     */
+    @Override
+    public void close() throws java.io.IOException {
+        this.relay.close();
+        disconnect();
+        this.server.stop(true);
+        try (java.util.stream.Stream<java.nio.file.Path> walk = java.nio.file.Files.walk(this.root)) {
+            for (java.nio.file.Path path : (Iterable<java.nio.file.Path>) walk.sorted(java.util.Comparator.reverseOrder())::iterator)
+                java.nio.file.Files.delete(path);
+        }
+    }
+    
+    
+    
+//METHODES PRIVATES
+    /**
+     * Accepte les connexions au relais et les relie au serveur SSH, jusqu'à la fermeture du relais.
+     */
+    private void accept() {
+        while (!this.relay.isClosed()) {
+            try {
+                java.net.Socket client = this.relay.accept();
+                if (this.refusing) {
+                    client.close();
+                    continue;
+                }
+                Link link = new Link(client, new java.net.Socket(java.net.InetAddress.getLoopbackAddress(), this.server.getPort()));
+                this.links.add(link);
+                link.start();
+            } catch (java.io.IOException ex) {
+                // Relais fermé, ou connexion au serveur impossible
+            }
+        }
+    }
+    
+    
+    
+//METHODE PRIVATE STATIC
+    /**
+     * Crée un thread démon.
+     * @param name Le nom du thread
+     * @param task La tâche du thread
+     * @return Le thread (non démarré)
+     */
+    private static Thread daemon(String name, Runnable task) {
+        Thread thread = new Thread(task, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+    
+    
+    
+//CLASS PRIVATE
+    /**
+     * Cette classe représente une connexion relayée entre un client et le serveur SSH : chaque sens est relayé par sa propre {@link Pipe}
+     * @author JasonPercus
+     * @version 1.0
+     */
+    private class Link {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * La socket du client
+         */
+        private final java.net.Socket client;
+
+        /**
+         * La socket vers le serveur SSH
+         */
+        private final java.net.Socket server;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée une connexion relayée.
+         * @param client La socket du client
+         * @param server La socket vers le serveur SSH
+         */
+        public Link(java.net.Socket client, java.net.Socket server) {
+            this.client = client;
+            this.server = server;
+        }
+    
+    
+    
+    //METHODES PUBLICS
+        /**
+         * Démarre le relais dans les deux sens.
+         * @throws java.io.IOException Si les flux des sockets ne sont pas accessibles
+         */
+        public void start() throws java.io.IOException {
+            new Pipe(this, this.client.getInputStream(), this.server.getOutputStream()).start();
+            new Pipe(this, this.server.getInputStream(), this.client.getOutputStream()).start();
+        }
+
+        /**
+         * Ferme les deux sockets de la connexion.
+         */
+        public void close() {
+            FakeTablet.this.links.remove(this);
+            try {
+                this.client.close();
+            } catch (java.io.IOException ex) {}
+            try {
+                this.server.close();
+            } catch (java.io.IOException ex) {}
+        }
+    
+    
+    
+    }
+
+    /**
+     * Cette classe relaie un sens d'une connexion en appliquant la latence, le débit maximum et le gel du trafic de la tablette simulée.
+     * Un thread lit les blocs et les date, un second les écrit une fois leur date d'échéance atteinte : la latence retarde ainsi chaque bloc sans limiter le nombre de blocs en transit
+     * @author JasonPercus
+     * @version 1.0
+     */
+    private class Pipe {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * La connexion relayée
+         */
+        private final Link link;
+
+        /**
+         * Le flux lu
+         */
+        private final java.io.InputStream in;
+
+        /**
+         * Le flux écrit
+         */
+        private final java.io.OutputStream out;
+
+        /**
+         * Les blocs lus, accompagnés de leur date d'échéance (en nanosecondes). Un bloc vide signale la fin du flux
+         */
+        private final java.util.concurrent.BlockingQueue<java.util.Map.Entry<Long, byte[]>> queue;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée un relais à sens unique.
+         * @param link La connexion relayée
+         * @param in Le flux lu
+         * @param out Le flux écrit
+         */
+        public Pipe(Link link, java.io.InputStream in, java.io.OutputStream out) {
+            this.link  = link;
+            this.in    = in;
+            this.out   = out;
+            this.queue = new java.util.concurrent.LinkedBlockingQueue<>();
+        }
+    
+    
+    
+    //METHODES PUBLICS
+        /**
+         * Démarre les threads de lecture et d'écriture.
+         */
+        public void start() {
+            daemon("FakeTablet Reader", this::read).start();
+            daemon("FakeTablet Writer", this::write).start();
+        }
+    
+    
+    
+    //METHODES PRIVATES
+        /**
+         * Lit les blocs du flux et les date jusqu'à la fin du flux.
+         */
+        private void read() {
+            byte[] buffer = new byte[CHUNK];
+            try {
+                int n;
+                while ((n = this.in.read(buffer)) > 0)
+                    this.queue.add(new java.util.AbstractMap.SimpleImmutableEntry<>(System.nanoTime() + FakeTablet.this.latency * 1_000_000, java.util.Arrays.copyOf(buffer, n)));
+            } catch (java.io.IOException ex) {
+                // Connexion coupée
+            }
+            this.queue.add(new java.util.AbstractMap.SimpleImmutableEntry<>(0L, new byte[0]));
+        }
+
+        /**
+         * Écrit les blocs lus une fois leur date d'échéance atteinte, puis ferme la connexion à la fin du flux.
+         */
+        private void write() {
+            long free = System.nanoTime();
+            try {
+                while (true) {
+                    java.util.Map.Entry<Long, byte[]> chunk = this.queue.take();
+                    byte[] datas = chunk.getValue();
+                    if (datas.length == 0)
+                        break;
+                    sleepUntil(chunk.getKey());
+                    long rate = FakeTablet.this.bandwidth;
+                    if (rate > 0) {
+                        free = Math.max(free, System.nanoTime()) + datas.length * 1_000_000_000L / rate;
+                        sleepUntil(free);
+                    }
+                    while (FakeTablet.this.frozen)
+                        Thread.sleep(10);
+                    this.out.write(datas);
+                    this.out.flush();
+                }
+            } catch (java.io.IOException ex) {
+                // Connexion coupée
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            this.link.close();
+        }
+
+        /**
+         * Attend jusqu'à une date donnée.
+         * @param deadline La date (en nanosecondes, voir {@link System#nanoTime()})
+         * @throws InterruptedException Si le thread est interrompu
+         */
+        private void sleepUntil(long deadline) throws InterruptedException {
+            long remaining;
+            while ((remaining = deadline - System.nanoTime()) > 0)
+                Thread.sleep(remaining / 1_000_000, (int) (remaining % 1_000_000));
+        }
+    
+    
+    
+    }
+
+    /**
+     * Cette classe émule les commandes sha256sum et md5sum de la tablette, utilisées par {@link Connection} pour vérifier un fichier sans le télécharger. Toute autre commande échoue (code de sortie 127)
+     * @author JasonPercus
+     * @version 1.0
+     */
+    private class DigestCommand implements Command {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * La commande exécutée
+         */
+        private final String command;
+
+        /**
+         * Le flux de sortie standard de la commande
+         */
+        private java.io.OutputStream out;
+
+        /**
+         * Le flux d'erreur de la commande
+         */
+        private java.io.OutputStream err;
+
+        /**
+         * L'objet averti de la fin de la commande
+         */
+        private ExitCallback callback;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée une commande.
+         * @param command La commande exécutée
+         */
+        public DigestCommand(String command) {
+            this.command = command;
+        }
+    
+    
+    
+    //METHODES PUBLICS
+        /**
+         * Reçoit le flux d'entrée standard de la commande (non utilisé).
+         * @param in Le flux d'entrée standard
+         */
+        @Override
+        public void setInputStream(java.io.InputStream in) {
+
+        }
+
+        /**
+         * Reçoit le flux de sortie standard de la commande.
+         * @param out Le flux de sortie standard
+         */
+        @Override
+        public void setOutputStream(java.io.OutputStream out) {
+            this.out = out;
+        }
+
+        /**
+         * Reçoit le flux d'erreur de la commande.
+         * @param err Le flux d'erreur
+         */
+        @Override
+        public void setErrorStream(java.io.OutputStream err) {
+            this.err = err;
+        }
+
+        /**
+         * Reçoit l'objet averti de la fin de la commande.
+         * @param callback L'objet averti de la fin de la commande
+         */
+        @Override
+        public void setExitCallback(ExitCallback callback) {
+            this.callback = callback;
+        }
+
+        /**
+         * Exécute la commande.
+         * @param channel Le canal de la commande
+         * @param env L'environnement de la commande
+         * @throws java.io.IOException Si la sortie ne peut pas être écrite
+         */
+        @Override
+        public void start(ChannelSession channel, Environment env) throws java.io.IOException {
+            java.util.regex.Matcher matcher = java.util.regex.Pattern.compile("(sha256sum|md5sum) -- '(.*)'").matcher(this.command);
+            if (!matcher.matches()) {
+                this.err.write((this.command + ": command not found\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                this.err.flush();
+                this.callback.onExit(127);
+                return;
+            }
+            String path = matcher.group(2).replace("'\\''", "'");
+            try {
+                byte[] hash = java.security.MessageDigest.getInstance(matcher.group(1).equals("md5sum") ? "MD5" : "SHA-256").digest(java.nio.file.Files.readAllBytes(file(path)));
+                StringBuilder sb = new StringBuilder();
+                for (byte b : hash)
+                    sb.append(String.format("%02x", b));
+                this.out.write((sb + "  " + path + "\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                this.out.flush();
+                this.callback.onExit(0);
+            } catch (java.io.IOException | java.security.NoSuchAlgorithmException ex) {
+                this.err.write((matcher.group(1) + ": " + path + ": No such file or directory\n").getBytes(java.nio.charset.StandardCharsets.UTF_8));
+                this.err.flush();
+                this.callback.onExit(1);
+            }
+        }
+
+        /**
+         * Interrompt la commande (elle est déjà terminée à la fin de {@link #start(ChannelSession, Environment)}).
+         * @param channel Le canal de la commande
+         */
+        @Override
+        public void destroy(ChannelSession channel) {
+
+        }
+    
+    
+    
+    }
+
+
+
+}
\ No newline at end of file
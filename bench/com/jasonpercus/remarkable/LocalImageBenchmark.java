@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure le chargement d'une image système choisie sur le PC : la recopie par tampon de 1 Ko de l'ancien App.loadButtonActionPerformed face à la lecture directe de {@link LocalImage#read(java.nio.file.Path)}, puis le décodage via un flux (avec le cache d'ImageIO) face au décodage sur place d'un tableau ou d'un fichier projeté en mémoire.
+ * Usage : ant bench -Dbench.include=LocalImageBenchmark
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class LocalImageBenchmark {
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * L'image système chargée (dans le dossier MyScreens)
+     */
+    @Param({"suspended.png"})
+    public String file;
+
+    /**
+     * Le chemin de l'image
+     */
+    private java.nio.file.Path path;
+
+    /**
+     * Les données de l'image
+     */
+    private byte[] datas;
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Résout le chemin de l'image et charge ses données.
+     * @throws java.io.IOException Si l'image ne peut pas être lue
+     */
+    @Setup
+    public void setup() throws java.io.IOException {
+        this.path  = java.nio.file.Paths.get("MyScreens", file);
+        this.datas = java.nio.file.Files.readAllBytes(this.path);
+    }
+
+    /**
+     * Lit le fichier par tampon de 1 Ko dans un ByteArrayOutputStream, comme le faisait App.loadButtonActionPerformed.
+     * @return Les données du fichier
+     * @throws java.io.IOException Si le fichier ne peut pas être lu
+     */
+    @Benchmark
+    public byte[] streamCopy() throws java.io.IOException {
+        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
+        try (java.io.BufferedInputStream fis = new java.io.BufferedInputStream(new java.io.FileInputStream(this.path.toFile()))) {
+            byte[] buffer = new byte[1024];
+            int bytesRead;
+            while ((bytesRead = fis.read(buffer)) != -1)
+                bos.write(buffer, 0, bytesRead);
+        }
+        return bos.toByteArray();
+    }
+
+    /**
+     * Vérifie l'en-tête puis lit le fichier directement dans un tableau de sa taille exacte.
+     * @return Les données du fichier
+     * @throws java.io.IOException Si le fichier ne peut pas être lu
+     * @throws ScreenFormat.FormatException Si le fichier n'est pas une image système
+     */
+    @Benchmark
+    public byte[] localRead() throws java.io.IOException, ScreenFormat.FormatException {
+        return LocalImage.read(this.path);
+    }
+
+    /**
+     * Décode les données via un flux, ce qui fait recopier les données dans le cache d'ImageIO.
+     * @return L'image décodée
+     * @throws java.io.IOException Si l'image ne peut pas être décodée
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage decodeStream() throws java.io.IOException {
+        return javax.imageio.ImageIO.read(new java.io.ByteArrayInputStream(this.datas));
+    }
+
+    /**
+     * Décode les données sur place avec {@link ScreenFormat#decode(byte[])}.
+     * @return L'image décodée
+     * @throws java.io.IOException Si l'image ne peut pas être décodée
+     * @throws ScreenFormat.FormatException Si les données ne sont pas une image système
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage decodeHeap() throws java.io.IOException, ScreenFormat.FormatException {
+        return ScreenFormat.decode(this.datas);
+    }
+
+    /**
+     * Projette le fichier en mémoire et le décode sur place avec {@link LocalImage#decode(java.nio.file.Path)}.
+     * @return L'image décodée
+     * @throws java.io.IOException Si le fichier ne peut pas être décodé
+     * @throws ScreenFormat.FormatException Si le fichier n'est pas une image système
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage decodeMapped() throws java.io.IOException, ScreenFormat.FormatException {
+        return LocalImage.decode(this.path);
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import com.jasonpercus.remarkable.Miniature.MiniatureException;
+import com.jasonpercus.util.Scaler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure le coût de l'affichage d'une image système : construction d'une {@link Miniature} (vérification de l'entête, empreinte, décodage et réduction au 1/6) avec et sans le cache des images réduites, et réduction au 1/2.3 effectuée par la vue du {@link Viewer}.
+ * Usage : ant bench -Dbench.include=MiniatureBenchmark
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class MiniatureBenchmark {
+
+
+
+//ATTRIBUTS
+    /**
+     * L'image système mesurée (dans le dossier MyScreens)
+     */
+    @Param({"suspended.png", "poweroff.png"})
+    public String file;
+
+    /**
+     * Les données de l'image
+     */
+    private byte[] datas;
+
+
+
+//METHODES PUBLICS
+    /**
+     * Charge les données de l'image et place sa miniature en cache.
+     * @throws java.io.IOException Si l'image ne peut pas être lue
+     * @throws MiniatureException Si l'image n'a pas le format d'une image système
+     */
+    @Setup
+    public void setup() throws java.io.IOException, MiniatureException {
+        this.datas = java.nio.file.Files.readAllBytes(java.nio.file.Paths.get("MyScreens", file));
+        new Miniature(null, datas, file);
+    }
+
+    /**
+     * Construit une miniature alors que le cache est vide (premier affichage de l'image). Le cache est vidé avant chaque construction.
+     * @return La miniature
+     * @throws java.io.IOException Si l'image ne peut pas être décodée
+     * @throws MiniatureException Si l'image n'a pas le format d'une image système
+     */
+    @Benchmark
+    public Miniature construct() throws java.io.IOException, MiniatureException {
+        Thumbnails.CACHE.clear();
+        return new Miniature(null, datas, file);
+    }
+
+    /**
+     * Construit une miniature dont l'image réduite est déjà en cache (ré-affichage de l'image) : seuls l'entête et l'empreinte sont calculés.
+     * @return La miniature
+     * @throws java.io.IOException Si l'image ne peut pas être décodée
+     * @throws MiniatureException Si l'image n'a pas le format d'une image système
+     */
+    @Benchmark
+    public Miniature constructCached() throws java.io.IOException, MiniatureException {
+        return new Miniature(null, datas, file);
+    }
+
+    /**
+     * Décode et réduit l'image au 1/2.3 comme le fait la vue du {@link Viewer} lorsque l'image n'est pas en cache (la fenêtre elle-même ne peut pas être créée sans écran).
+     * @return L'image réduite
+     * @throws java.io.IOException Si l'image ne peut pas être décodée
+     * @throws ScreenFormat.FormatException Si l'image n'est pas une image système
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage viewerScale() throws java.io.IOException, ScreenFormat.FormatException {
+        return Scaler.scale(ScreenFormat.decode(datas), (int) (ScreenFormat.WIDTH / 2.3), (int) (ScreenFormat.HEIGHT / 2.3));
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure le coût local de la vérification d'un téléversement par {@link Connection} sur une image système de 2 Mo : la comparaison octet par octet des données re-téléchargées ({@link Connection.Verification#DOWNLOAD}, boucle d'origine et {@link java.util.Arrays#equals(byte[], byte[])}) face au calcul des sommes de contrôle locales ({@link Connection.Verification#CHECKSUM}).
+ * Usage : ant bench -Dbench.include=VerificationBenchmark
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VerificationBenchmark {
+
+
+
+//ATTRIBUTS
+    /**
+     * Les données téléversées
+     */
+    private byte[] datas;
+
+    /**
+     * Les données re-téléchargées (identiques, mais dans un autre tableau)
+     */
+    private byte[] newDatas;
+
+
+
+//METHODES PUBLICS
+    /**
+     * Charge une image système.
+     * @throws java.io.IOException Si l'image ne peut pas être lue
+     */
+    @Setup
+    public void setup() throws java.io.IOException {
+        this.datas    = java.nio.file.Files.readAllBytes(java.nio.file.Paths.get("MyScreens", "suspended.png"));
+        this.newDatas = this.datas.clone();
+    }
+
+    /**
+     * Compare les données octet par octet dans une boucle, comme le faisait Connection.upload.
+     * @return True si les données sont identiques
+     */
+    @Benchmark
+    public boolean byteByByte() {
+        if (datas.length != newDatas.length)
+            return false;
+        for (int i = 0; i < datas.length; i++) {
+            if (datas[i] != newDatas[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compare les données avec {@link java.util.Arrays#equals(byte[], byte[])} (vectorisée par la JVM).
+     * @return True si les données sont identiques
+     */
+    @Benchmark
+    public boolean arraysEquals() {
+        return java.util.Arrays.equals(datas, newDatas);
+    }
+
+    /**
+     * Calcule la somme de contrôle SHA-256 des données, comparée par {@link Connection.Verification#CHECKSUM} à celle calculée sur la tablette.
+     * @return La somme de contrôle
+     * @throws java.security.NoSuchAlgorithmException Si l'algorithme n'est pas disponible
+     */
+    @Benchmark
+    public byte[] sha256() throws java.security.NoSuchAlgorithmException {
+        return java.security.MessageDigest.getInstance("SHA-256").digest(datas);
+    }
+
+    /**
+     * Calcule la somme de contrôle MD5 des données, utilisée lorsque la tablette ne dispose pas de sha256sum.
+     * @return La somme de contrôle
+     * @throws java.security.NoSuchAlgorithmException Si l'algorithme n'est pas disponible
+     */
+    @Benchmark
+    public byte[] md5() throws java.security.NoSuchAlgorithmException {
+        return java.security.MessageDigest.getInstance("MD5").digest(datas);
+    }
+
+
+
+}
\ No newline at end of file
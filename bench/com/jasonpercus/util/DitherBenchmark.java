@@ -0,0 +1,92 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure le débit de {@link Dither} sur une image système complète (16 niveaux de gris), avec les deux méthodes de tramage, sur l'image d'origine (ABGR) et sur sa version en gris 8 bits.
+ * Usage : ant bench -Dbench.include=DitherBenchmark (l'image tramée peut être changée avec -Dbench.image=...)
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DitherBenchmark {
+
+
+
+//ATTRIBUTS
+    /**
+     * Le type de l'image à tramer
+     */
+    @Param({"TYPE_4BYTE_ABGR", "TYPE_BYTE_GRAY"})
+    public String type;
+
+    /**
+     * La méthode de tramage
+     */
+    @Param({"FLOYD_STEINBERG", "BAYER"})
+    public Dither.Method method;
+
+    /**
+     * L'image à tramer
+     */
+    private java.awt.image.BufferedImage image;
+
+
+
+//METHODES PUBLICS
+    /**
+     * Charge l'image à tramer (par défaut MyScreens/suspended.png) et la convertit dans le type mesuré.
+     * @throws java.io.IOException Si l'image ne peut pas être lue
+     */
+    @Setup
+    public void setup() throws java.io.IOException {
+        java.awt.image.BufferedImage color = javax.imageio.ImageIO.read(new java.io.File(System.getProperty("bench.image", "MyScreens/suspended.png")));
+        if (type.equals("TYPE_BYTE_GRAY")) {
+            this.image = new java.awt.image.BufferedImage(color.getWidth(), color.getHeight(), java.awt.image.BufferedImage.TYPE_BYTE_GRAY);
+            java.awt.Graphics2D g = this.image.createGraphics();
+            g.drawImage(color, 0, 0, null);
+            g.dispose();
+        } else {
+            this.image = color;
+        }
+    }
+
+    /**
+     * Trame l'image sur 16 niveaux de gris.
+     * @return L'image tramée
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage quantize() {
+        return Dither.quantize(image, 16, method);
+    }
+
+
+
+}
\ No newline at end of file
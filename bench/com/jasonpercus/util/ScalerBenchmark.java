@@ -0,0 +1,154 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+
+/**
+ * Mesure le débit de {@link Scaler} face à un unique {@link java.awt.Graphics2D#drawImage} (le chemin utilisé auparavant par Miniature et Viewer) et face à la moyenne de surface d'AWT.
+ * Les deux réductions de l'application sont mesurées (1/6 pour les miniatures, 1/2.3 pour le visualiseur), sur l'image d'origine (ABGR) et sur sa version en gris 8 bits.
+ * Usage : ant bench -Dbench.include=ScalerBenchmark (l'image réduite peut être changée avec -Dbench.image=...)
+ * @author JasonPercus
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(java.util.concurrent.TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScalerBenchmark {
+
+
+
+//ATTRIBUTS
+    /**
+     * Le type de l'image à réduire
+     */
+    @Param({"TYPE_4BYTE_ABGR", "TYPE_BYTE_GRAY"})
+    public String type;
+
+    /**
+     * Le facteur de réduction (6 pour les miniatures, 2.3 pour le visualiseur)
+     */
+    @Param({"6", "2.3"})
+    public double factor;
+
+    /**
+     * L'image à réduire
+     */
+    private java.awt.image.BufferedImage image;
+
+    /**
+     * La largeur de l'image réduite
+     */
+    private int w;
+
+    /**
+     * La hauteur de l'image réduite
+     */
+    private int h;
+
+
+
+//METHODES PUBLICS
+    /**
+     * Charge l'image à réduire (par défaut MyScreens/suspended.png) et la convertit dans le type mesuré.
+     * @throws java.io.IOException Si l'image ne peut pas être lue
+     */
+    @Setup
+    public void setup() throws java.io.IOException {
+        java.awt.image.BufferedImage color = javax.imageio.ImageIO.read(new java.io.File(System.getProperty("bench.image", "MyScreens/suspended.png")));
+        if (type.equals("TYPE_BYTE_GRAY")) {
+            this.image = new java.awt.image.BufferedImage(color.getWidth(), color.getHeight(), java.awt.image.BufferedImage.TYPE_BYTE_GRAY);
+            java.awt.Graphics2D g = this.image.createGraphics();
+            g.drawImage(color, 0, 0, null);
+            g.dispose();
+        } else {
+            this.image = color;
+        }
+        this.w = (int) (this.image.getWidth()  / factor);
+        this.h = (int) (this.image.getHeight() / factor);
+    }
+
+    /**
+     * Réduit l'image avec un unique drawImage et les paramètres par défaut (plus proche voisin), l'ancien chemin de Miniature et Viewer.
+     * @return L'image réduite
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage drawImage() {
+        return drawImage(null);
+    }
+
+    /**
+     * Réduit l'image avec un unique drawImage en interpolation bilinéaire.
+     * @return L'image réduite
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage drawImageBilinear() {
+        return drawImage(java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+    }
+
+    /**
+     * Réduit l'image avec la moyenne de surface d'AWT ({@link java.awt.Image#SCALE_AREA_AVERAGING}), qui donne la même qualité que {@link Scaler}.
+     * @return L'image réduite
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage areaAveraging() {
+        java.awt.image.BufferedImage result = new java.awt.image.BufferedImage(w, h, image.getType());
+        java.awt.Graphics2D g = result.createGraphics();
+        g.drawImage(image.getScaledInstance(w, h, java.awt.Image.SCALE_AREA_AVERAGING), 0, 0, null);
+        g.dispose();
+        return result;
+    }
+
+    /**
+     * Réduit l'image avec {@link Scaler}.
+     * @return L'image réduite
+     */
+    @Benchmark
+    public java.awt.image.BufferedImage scaler() {
+        return Scaler.scale(image, w, h);
+    }
+
+
+
+//METHODE PRIVATE
+    /**
+     * Réduit l'image avec un unique drawImage.
+     * @param interpolation L'interpolation à utiliser, ou null pour celle par défaut (plus proche voisin)
+     * @return L'image réduite
+     */
+    private java.awt.image.BufferedImage drawImage(Object interpolation) {
+        java.awt.image.BufferedImage result = new java.awt.image.BufferedImage(w, h, image.getType());
+        java.awt.Graphics2D g = result.createGraphics();
+        if (interpolation != null)
+            g.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION, interpolation);
+        g.drawImage(image, 0, 0, w, h, null);
+        g.dispose();
+        return result;
+    }
+
+
+
+}
\ No newline at end of file
@@ -10,8 +10,10 @@ package com.jasonpercus.remarkable;
 
 
 
-import com.jasonpercus.util.MET;
 import com.jasonpercus.util.EDT;
+import com.jasonpercus.util.PngOptimizer;
+import com.jasonpercus.util.PoolThread;
+import com.jasonpercus.util.VirtualThread;
 import com.jasonpercus.remarkable.Miniature.MiniatureException;
 
 
@@ -42,14 +44,24 @@ public class App extends javax.swing.JFrame {
      */
     private final static String TOOLTIP_PASS = "<html>Corresponds to the password of the Remarkable 2 tablet.<br><br>\n<p style=\"color: rgb(51, 51, 51)\">\n<i>The password is usually found in:</i><br>\n<b>Settings</b> > <b>General</b> > <b>Help</b> > <b>About</b> > <b>Copyrights and licenses</b></p>";
     
+    /**
+     * Correspond au dossier surveillé dont les images système sont importées automatiquement (propriété système remarkable.watch, aucun dossier par défaut). Voir {@link FolderImport}
+     */
+    private final static String WATCH_DIRECTORY = System.getProperty("remarkable.watch");
+    
+    /**
+     * Détermine si les images importées depuis le dossier surveillé sont aussitôt téléversées sur la tablette connectée (propriété système remarkable.watch.push, false par défaut)
+     */
+    private final static boolean AUTO_PUSH = Boolean.getBoolean("remarkable.watch.push");
+    
     
     
     
 //ATTRIBUTS
     /**
-     * L'instance de la fenêtre d'attente utilisée pour indiquer une tâche en cours.
+     * L'exécuteur sur lequel sont effectuées les tâches de fond (connexion, transferts, décodage des images).
      */
-    private Wait waiter;
+    private final java.util.concurrent.Executor executor;
     
     /**
      * L'instance de connexion utilisée pour communiquer avec l'hôte distant.
@@ -57,65 +69,90 @@ public class App extends javax.swing.JFrame {
     private Connection connection;
     
     /**
-     * La miniature originale "poweroff".
+     * Indique si la connexion a été perdue et tente de se rétablir : les téléversements sont alors désactivés.
      */
-    private Miniature miniaturePowerOff_original;
+    private boolean reconnecting;
     
     /**
-     * La miniature originale "batteryempty".
+     * Les boutons de sélection des images système, indexés par image système.
      */
-    private Miniature miniatureBatteryEmpty_original;
+    private final java.util.Map<Slot, javax.swing.JToggleButton> buttons;
     
     /**
-     * La miniature originale "rebooting".
+     * Les miniatures originales (téléchargées depuis la tablette), indexées par image système.
      */
-    private Miniature miniatureRebooting_original;
+    private final java.util.Map<Slot, Miniature> originals;
     
     /**
-     * La miniature originale "suspended".
+     * Les nouvelles miniatures (chargées depuis le PC ou par défaut), indexées par image système.
      */
-    private Miniature miniatureSuspended_original;
+    private final java.util.Map<Slot, Miniature> news;
     
     /**
-     * La nouvelle miniature "poweroff".
+     * Les miniatures des images par défaut, décodées en tâche de fond dès le démarrage, indexées par image système.
      */
-    private Miniature miniaturePowerOff;
+    private final java.util.Map<Slot, java.util.concurrent.CompletableFuture<Miniature>> defaults;
     
     /**
-     * La nouvelle miniature "batteryempty".
+     * La miniature affichée sur la gauche et qui représente l'image originale
      */
-    private Miniature miniatureBatteryEmpty;
+    private Miniature leftMiniature;
     
     /**
-     * La nouvelle miniature "rebooting".
+     * La miniature affichée sur la droite et qui représente la nouvelle image
      */
-    private Miniature miniatureRebooting;
+    private Miniature rightMiniature;
     
     /**
-     * La nouvelle miniature "suspended".
+     * Les miniatures des dernières images importées depuis le dossier surveillé, indexées par image système.
      */
-    private Miniature miniatureSuspended;
+    private final java.util.Map<Slot, Miniature> imports;
     
     /**
-     * La miniature affichée sur la gauche et qui représente l'image originale
+     * L'import du dossier surveillé, ou null si aucun dossier n'est surveillé.
      */
-    private Miniature leftMiniature;
+    private final FolderImport folderImport;
     
     /**
-     * La miniature affichée sur la droite et qui représente la nouvelle image
+     * Le dernier téléversement (manuel ou automatique) soumis : les téléversements sont enchaînés les uns après les autres (voir {@link #serial(java.util.concurrent.Callable)}) car la connexion ne supporte pas les accès concurrents.
      */
-    private Miniature rightMiniature;
+    private java.util.concurrent.CompletableFuture<Void> uploads;
     
     
     
 //CONSTRUCTOR
     /**
      * Construit une nouvelle instance de l'application.
-     * Initialise les composants de l'interface utilisateur.
+     * Initialise les composants de l'interface utilisateur. Les tâches de fond sont exécutées sur des threads virtuels lorsque la JVM le permet (voir {@link #defaultExecutor()}).
      */
     public App() {
+        this(defaultExecutor());
+    }
+
+    /**
+     * Construit une nouvelle instance de l'application.
+     * Initialise les composants de l'interface utilisateur, décode en tâche de fond les images par défaut de toutes les images système et, si la propriété système remarkable.watch est définie, commence à surveiller le dossier d'import.
+     *
+     * @param executor L'exécuteur sur lequel effectuer les tâches de fond.
+     */
+    public App(java.util.concurrent.Executor executor) {
+        this.executor  = executor;
+        this.originals = new java.util.EnumMap<>(Slot.class);
+        this.news      = new java.util.EnumMap<>(Slot.class);
+        this.defaults  = new java.util.EnumMap<>(Slot.class);
+        this.imports   = new java.util.EnumMap<>(Slot.class);
+        this.uploads   = java.util.concurrent.CompletableFuture.completedFuture(null);
         initComponents();
+        this.buttons   = new java.util.EnumMap<>(Slot.class);
+        this.buttons.put(Slot.BATTERYEMPTY, batteryEmptyButton);
+        this.buttons.put(Slot.POWEROFF,     powerOffButton);
+        this.buttons.put(Slot.REBOOTING,    rebootingButton);
+        this.buttons.put(Slot.SLEEPING,     sleepingButton);
+        this.buttons.put(Slot.SUSPENDED,    suspendedButton);
         passField.requestFocus();
+        for (Slot slot : Slot.values())
+            this.defaults.put(slot, decodeDefault(slot));
+        this.folderImport = watch();
     }
     
     
@@ -151,17 +188,34 @@ public class App extends javax.swing.JFrame {
      */
     @Override
     public void dispose() {
-        if(this.connection != null && this.connection.isConnected())
-            this.<Void>execute("Disconnection in progress...", () -> {
-                this.connection.disconnect();
-                return null;
-            });
-        super.dispose();
+        if (this.folderImport != null)
+            this.folderImport.close();
+        Connection c = this.connection;
+        if(c != null && c.isConnected()) {
+            this.connection = null;
+            this.<Boolean>execute("Disconnection in progress...", c::disconnect).whenCompleteAsync((disconnected, ex) -> {
+                    super.dispose();
+            }, EDT.EXECUTOR);
+        } else {
+            super.dispose();
+        }
     }
     
     
     
 //METHODES PRIVATES STATICS
+    /**
+     * Crée l'exécuteur par défaut des tâches de fond.
+     * Les threads virtuels (Java 21 et plus) sont utilisés lorsqu'ils sont disponibles, sauf si la propriété système remarkable.executor vaut "platform". Sinon, un pool borné de threads démons est utilisé.
+     *
+     * @return L'exécuteur par défaut des tâches de fond.
+     */
+    private static java.util.concurrent.Executor defaultExecutor() {
+        if ("platform".equals(System.getProperty("remarkable.executor")))
+            return new PoolThread("App Worker", Runtime.getRuntime().availableProcessors()).asExecutor();
+        return new VirtualThread("App Worker").asExecutor();
+    }
+
     /**
      * Charge les icônes d'image de différentes tailles pour les utiliser dans l'interface utilisateur.
      *
@@ -175,72 +229,80 @@ public class App extends javax.swing.JFrame {
         return images;
     }
     
-    /**
-     * Charge une image des assets
-     * 
-     * @param pathResource Correspond au chemin de l'image à charger
-     * @return Retourne l'image sous la forme d'un tableau de bytes
-     */
-    private static byte[] loadOriginalImg(String pathResource) {
-        try {
-            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-            java.io.BufferedInputStream   bis  = new java.io.BufferedInputStream(App.class.getResourceAsStream(pathResource));
-            int value;
-            while ((value = bis.read()) > -1) {
-                baos.write(value);
-            }
-            bis.close();
-            baos.close();
-            return baos.toByteArray();
-        } catch (java.io.IOException ex) {
-            return null;
-        }
-    }
-    
     
     
 //METHODES PRIVATES
     /**
-     * Exécute une tâche sur un thread séparé tout en affichant une fenêtre d'attente à l'utilisateur.
-     * Une fois la tâche terminée, la fenêtre d'attente est fermée.
+     * Exécute une tâche sur l'exécuteur de l'application tout en affichant une fenêtre d'attente à l'utilisateur.
+     * La méthode rend la main immédiatement : le résultat est à récupérer sur le futur renvoyé (sur l'EDT avec {@link EDT#EXECUTOR}). La fenêtre d'attente est fermée dès que la tâche est terminée.
      *
      * @param message Le message à afficher dans la fenêtre d'attente.
      * @param code La tâche à exécuter.
      * @param <T> Le type de résultat retourné par la tâche.
-     * @return Le résultat de la tâche.
-     * @throws ExecutionException Si une erreur se produit pendant l'exécution de la tâche.
+     * @return Le futur résultat de la tâche.
+     */
+    private <T> java.util.concurrent.CompletableFuture<T> execute(String message, java.util.concurrent.Callable<T> code) {
+        return execute(new Wait(this, message), code);
+    }
+
+    /**
+     * Exécute un transfert de fichier après les téléversements déjà soumis (voir {@link #serial(java.util.concurrent.Callable)}) tout en affichant sa progression à l'utilisateur.
+     * La fenêtre d'attente affiche l'avancement, le débit et le temps restant du transfert, et permet à l'utilisateur de l'annuler.
+     *
+     * @param message Le message à afficher dans la fenêtre d'attente.
+     * @param code Le transfert à exécuter, qui reçoit le listener à informer de sa progression.
+     * @param <T> Le type de résultat retourné par le transfert.
+     * @return Le futur résultat du transfert.
+     */
+    private <T> java.util.concurrent.CompletableFuture<T> transfer(String message, java.util.function.Function<Connection.TransferListener, T> code) {
+        Wait wait = new Wait(this, message, true);
+        EDT.execute(() -> wait.setVisible(true));
+        return serial(() -> code.apply(wait)).whenCompleteAsync((result, ex) -> {
+            wait.dispose();
+        }, EDT.EXECUTOR);
+    }
+
+    /**
+     * Exécute un téléversement sur l'exécuteur de l'application, après tous les téléversements déjà soumis.
+     * Les téléversements manuels et automatiques utilisent le même canal SFTP et le même fichier temporaire sur la tablette : ils ne doivent jamais s'exécuter en même temps. Cette méthode doit être appelée depuis l'EDT.
+     *
+     * @param code Le téléversement à exécuter.
+     * @param <T> Le type de résultat retourné par le téléversement.
+     * @return Le futur résultat du téléversement.
      */
-    private <T> T execute(String message, java.util.concurrent.Callable<T> code) throws ExecutionException {
-        javax.swing.SwingWorker<T, Void> worker = new javax.swing.SwingWorker<T, Void>() {
-            @Override
-            protected T doInBackground() throws Exception {
+    private <T> java.util.concurrent.CompletableFuture<T> serial(java.util.concurrent.Callable<T> code) {
+        java.util.concurrent.CompletableFuture<T> next = this.uploads.thenApplyAsync((Void v) -> {
+            try {
                 return code.call();
+            } catch (Exception ex) {
+                throw new java.util.concurrent.CompletionException(ex);
             }
+        }, this.executor);
+        this.uploads = next.handle((result, ex) -> null);
+        return next;
+    }
 
-            @Override
-            protected void done() {
-                if(App.this.waiter != null) {
-                    App.this.waiter.dispose();
-                    App.this.waiter = null;
-                }
-            }
-        };
-        worker.execute();
-        if (this.waiter != null) {
-            this.waiter.dispose();
-            this.waiter = null;
-        }
-        this.waiter = new Wait(this, message);
-        this.waiter.setVisible(true);
-        try {
-            return worker.get();
-        } catch (InterruptedException | java.util.concurrent.ExecutionException ex) {
-            if (this.waiter != null) {
-                this.waiter.dispose();
-                this.waiter = null;
+    /**
+     * Exécute une tâche sur l'exécuteur de l'application tout en affichant la fenêtre d'attente spécifiée.
+     * La fenêtre d'attente est affichée depuis un événement de l'EDT, de sorte que l'appelant n'est jamais bloqué. Elle est fermée sur l'EDT une fois la tâche terminée, avant que le futur renvoyé ne soit complété.
+     *
+     * @param waiter La fenêtre d'attente à afficher.
+     * @param code La tâche à exécuter.
+     * @param <T> Le type de résultat retourné par la tâche.
+     * @return Le futur résultat de la tâche.
+     */
+    private <T> java.util.concurrent.CompletableFuture<T> execute(Wait waiter, java.util.concurrent.Callable<T> code) {
+        //L'affichage est planifié avant le lancement de la tâche pour que la fermeture ne puisse pas le précéder
+        EDT.execute(() -> waiter.setVisible(true));
+        return java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+            try {
+                return code.call();
+            } catch (Exception ex) {
+                throw new java.util.concurrent.CompletionException(ex);
             }
-            throw new ExecutionException(ex);
-        }
+        }, this.executor).whenCompleteAsync((result, ex) -> {
+            waiter.dispose();
+        }, EDT.EXECUTOR);
     }
     
     /**
@@ -256,25 +318,56 @@ public class App extends javax.swing.JFrame {
     
     /**
      * Méthode appelée lorsque la connexion à la tablette Remarkable est établie avec succès.
-     * Télécharge les miniatures originales des images depuis l'hôte distant et les affiche dans l'interface utilisateur.
+     * Les images système sont téléchargées par le téléchargement groupé de la connexion (voir {@link Connection#download(java.util.List, Connection.DownloadListener)}), qui borne le nombre de canaux SFTP ouverts simultanément. Chaque image suit ensuite son propre pipeline (décodage, puis affichage sur l'EDT) dès que ses données sont arrivées, sans attendre les autres images, si bien que chacune est prête avant que l'utilisateur ne la sélectionne.
+     * Si le téléversement automatique est activé, les images déjà importées depuis le dossier surveillé sont ensuite téléversées.
      * En cas d'échec, affiche un message d'erreur.
      */
     private void connected() {
-        MET.execute(() -> {
-            try {
-                this.miniatureBatteryEmpty_original = new Miniature(this, this.connection.downloadBatteryempty(), "batteryempty.png");
-                EDT.execute(() -> {
-                    showLeftMiniature(this.miniatureBatteryEmpty_original);
-                });
-                this.miniaturePowerOff_original     = new Miniature(this, this.connection.downloadPoweroff(), "poweroff.png");
-                this.miniatureRebooting_original    = new Miniature(this, this.connection.downloadRebooting(), "rebooting.png");
-                this.miniatureSuspended_original    = new Miniature(this, this.connection.downloadSuspended(), "suspended.png");
-            } catch (java.io.IOException | MiniatureException ex) {
-                showMessageDialog("Program error", "The program is no longer compatible with the internal version of the Remarkable 2 tablet !", javax.swing.JOptionPane.ERROR_MESSAGE);
-            }
+        Connection c = this.connection;
+        java.util.Map<String, java.util.concurrent.CompletableFuture<byte[]>> downloads = new java.util.LinkedHashMap<>();
+        for (Slot slot : Slot.values())
+            downloads.put(slot.getRemotePath(), new java.util.concurrent.CompletableFuture<>());
+        java.util.concurrent.CompletableFuture.runAsync(() -> {
+            c.download(new java.util.ArrayList<>(downloads.keySet()), (String path, byte[] datas) -> {
+                if (datas != null)
+                    downloads.get(path).complete(datas);
+            });
+        }, this.executor).whenComplete((Void v, Throwable ex) -> {
+            for (java.util.Map.Entry<String, java.util.concurrent.CompletableFuture<byte[]>> download : downloads.entrySet())
+                download.getValue().completeExceptionally(new java.io.IOException("Unable to download " + download.getKey()));
         });
+
+        java.util.List<java.util.concurrent.CompletableFuture<Void>> pipelines = new java.util.ArrayList<>();
+        for (Slot slot : Slot.values()) {
+            pipelines.add(downloads.get(slot.getRemotePath()).thenApplyAsync((byte[] datas) -> {
+                try {
+                    return new Miniature(this, datas, slot.getFileName());
+                } catch (java.io.IOException | MiniatureException ex) {
+                    throw new java.util.concurrent.CompletionException(ex);
+                }
+            }, this.executor).thenAcceptAsync((Miniature miniature) -> {
+                if (this.connection != c)
+                    return;
+                this.originals.put(slot, miniature);
+                if (selectedSlot() == slot)
+                    showLeftMiniature(miniature);
+            }, EDT.EXECUTOR));
+        }
+        java.util.concurrent.CompletableFuture.allOf(pipelines.toArray(new java.util.concurrent.CompletableFuture<?>[0])).exceptionally((Throwable ex) -> {
+            EDT.execute(() -> {
+                if (this.connection == c)
+                    showMessageDialog("Program error", "The program is no longer compatible with the internal version of the Remarkable 2 tablet !", javax.swing.JOptionPane.ERROR_MESSAGE);
+            });
+            return null;
+        });
+        if (AUTO_PUSH && !this.imports.isEmpty()) {
+            java.util.concurrent.CompletableFuture<Void> shown = java.util.concurrent.CompletableFuture.allOf(pipelines.toArray(new java.util.concurrent.CompletableFuture<?>[0]));
+            this.uploads = java.util.concurrent.CompletableFuture.allOf(this.uploads, shown).handle((v, ex) -> null);
+            for (java.util.Map.Entry<Slot, Miniature> entry : this.imports.entrySet())
+                push(entry.getKey(), entry.getValue().getDatasFile());
+        }
     }
-    
+
     /**
      * Méthode appelée lors de la déconnexion de la tablette Remarkable.
      * Supprime les miniatures affichées dans l'interface utilisateur et réinitialise les attributs correspondants.
@@ -292,21 +385,33 @@ public class App extends javax.swing.JFrame {
             rightImagePanel.repaint();
         }
 
-        this.miniaturePowerOff_original     = null;
-        this.miniatureBatteryEmpty_original = null;
-        this.miniatureRebooting_original    = null;
-        this.miniatureSuspended_original    = null;
-        this.miniaturePowerOff              = null;
-        this.miniatureBatteryEmpty          = null;
-        this.miniatureRebooting             = null;
-        this.miniatureSuspended             = null;
-        this.leftMiniature                  = null;
-        this.rightMiniature                 = null;
+        this.reconnecting = false;
+        this.uploadLeftButton.setEnabled(true);
+        this.originals.clear();
+        this.news.clear();
+        this.news.putAll(this.imports);
+        this.leftMiniature  = null;
+        this.rightMiniature = null;
 
-        batteryEmptyButton.setSelected(true);
+        this.buttons.get(Slot.values()[0]).setSelected(true);
         passField.requestFocus();
     }
     
+    /**
+     * Méthode appelée lorsque la connexion a été perdue et tente de se rétablir, puis lorsqu'elle est rétablie.
+     * Pendant les tentatives de reconnexion, le bouton de connexion l'indique et les boutons de téléversement sont désactivés, car tout téléversement échouerait.
+     *
+     * @param reconnecting True si la connexion tente de se rétablir, false si elle est rétablie.
+     */
+    private void reconnecting(boolean reconnecting) {
+        if (this.connection == null)
+            return;
+        this.reconnecting = reconnecting;
+        this.connectionButton.setText(reconnecting ? "Reconnecting..." : "Disconnect");
+        this.uploadLeftButton.setEnabled(!reconnecting);
+        this.uploadRightButton.setEnabled(this.rightMiniature != null && !reconnecting);
+    }
+    
     /**
      * Lorsque la déconnexion est détectée (l'utilisateur n'a pas touché au logiciel, mais matériellement parlant, il n'y plus de connexion active avec la tablette)
      */
@@ -328,6 +433,116 @@ public class App extends javax.swing.JFrame {
         }
     }
     
+    /**
+     * Renvoie l'image système dont le bouton est sélectionné.
+     *
+     * @return L'image système sélectionnée, ou null si aucun bouton n'est sélectionné.
+     */
+    private Slot selectedSlot() {
+        for (java.util.Map.Entry<Slot, javax.swing.JToggleButton> entry : this.buttons.entrySet()) {
+            if (entry.getValue().isSelected())
+                return entry.getKey();
+        }
+        return null;
+    }
+    
+    /**
+     * Lance sur l'exécuteur de l'application la lecture et le décodage de l'image par défaut d'une image système.
+     *
+     * @param slot L'image système.
+     * @return La future miniature de l'image par défaut.
+     */
+    private java.util.concurrent.CompletableFuture<Miniature> decodeDefault(Slot slot) {
+        return java.util.concurrent.CompletableFuture.supplyAsync(() -> {
+            try {
+                return new Miniature(this, slot.getOriginal(), slot.getFileName());
+            } catch (java.io.IOException | MiniatureException ex) {
+                throw new java.util.concurrent.CompletionException(ex);
+            }
+        }, this.executor);
+    }
+    
+    /**
+     * Commence à surveiller le dossier d'import défini par la propriété système remarkable.watch.
+     *
+     * @return L'import du dossier, ou null si aucun dossier n'est défini ou s'il ne peut pas être surveillé.
+     */
+    private FolderImport watch() {
+        if (WATCH_DIRECTORY == null)
+            return null;
+        try {
+            FolderImport fi = new FolderImport(java.nio.file.Paths.get(WATCH_DIRECTORY), Runtime.getRuntime().availableProcessors(), new FolderImport.Listener() {
+                @Override
+                public void imported(Slot slot, java.nio.file.Path file, byte[] datas) {
+                    App.this.imported(slot, datas);
+                }
+
+                @Override
+                public void rejected(Slot slot, java.nio.file.Path file, String reason) {
+                    java.util.logging.Logger.getLogger(App.class.getName()).log(java.util.logging.Level.WARNING, "{0} was not imported: {1}", new Object[]{file, reason});
+                }
+            });
+            fi.start();
+            return fi;
+        } catch (java.io.IOException ex) {
+            java.util.logging.Logger.getLogger(App.class.getName()).log(java.util.logging.Level.SEVERE, null, ex);
+            return null;
+        }
+    }
+    
+    /**
+     * Méthode appelée (depuis un thread de l'import) lorsqu'une image nouvelle ou modifiée a été importée depuis le dossier surveillé.
+     * Sa miniature (déjà décodée par l'import) devient la nouvelle image de son image système et, si le téléversement automatique est activé, l'image est téléversée sur la tablette connectée.
+     *
+     * @param slot L'image système de l'image importée.
+     * @param datas Les données de l'image importée.
+     */
+    private void imported(Slot slot, byte[] datas) {
+        Miniature miniature;
+        try {
+            miniature = new Miniature(this, datas, slot.getFileName());
+        } catch (java.io.IOException | MiniatureException ex) {
+            return;
+        }
+        EDT.execute(() -> {
+            this.imports.put(slot, miniature);
+            this.news.put(slot, miniature);
+            if (selectedSlot() == slot) {
+                showRightMiniature(miniature);
+                uploadRightButton.setEnabled(!this.reconnecting);
+            }
+            if (AUTO_PUSH)
+                push(slot, datas);
+        });
+    }
+    
+    /**
+     * Téléverse en tâche de fond une image importée sur la tablette connectée, après les téléversements déjà en cours (voir {@link #serial(java.util.concurrent.Callable)}). Une fois téléversée, l'image devient l'image originale de son image système.
+     * Une image identique à celle de la tablette n'est pas re-téléversée (voir {@link Connection#setSkipUnchanged(boolean)}). Rien n'est fait si aucune tablette n'est connectée.
+     *
+     * @param slot L'image système de l'image.
+     * @param datas Les données de l'image.
+     */
+    private void push(Slot slot, byte[] datas) {
+        Connection c = this.connection;
+        if (c == null || !c.isConnected())
+            return;
+        this.<Miniature>serial(() -> {
+            if (!c.upload(PngOptimizer.optimize(datas), slot.getRemotePath()))
+                throw new java.io.IOException(slot.getFileName() + " was not uploaded !");
+            return new Miniature(this, datas, slot.getFileName());
+        }).thenAcceptAsync((Miniature miniature) -> {
+            if (this.connection != c)
+                return;
+            this.originals.put(slot, miniature);
+            if (selectedSlot() == slot)
+                showLeftMiniature(miniature);
+        }, EDT.EXECUTOR).exceptionally((Throwable ex) -> {
+            java.util.logging.Logger.getLogger(App.class.getName()).log(java.util.logging.Level.WARNING, null, ex);
+            return null;
+        });
+    }
+    
     /**
      * Affiche la miniature spécifiée dans le panneau d'image de gauche de l'interface utilisateur.
      *
@@ -382,6 +597,7 @@ public class App extends javax.swing.JFrame {
         batteryEmptyButton = new javax.swing.JToggleButton();
         powerOffButton = new javax.swing.JToggleButton();
         rebootingButton = new javax.swing.JToggleButton();
+        sleepingButton = new javax.swing.JToggleButton();
         suspendedButton = new javax.swing.JToggleButton();
         contentSectionPanel = new javax.swing.JPanel();
         leftSectionPanel = new javax.swing.JPanel();
@@ -474,7 +690,7 @@ public class App extends javax.swing.JFrame {
 
         content.setLayout(new java.awt.BorderLayout());
 
-        controlButtonSectionPanel.setLayout(new java.awt.GridLayout(1, 4));
+        controlButtonSectionPanel.setLayout(new java.awt.GridLayout(1, 5));
 
         controlButtonSectionGroup.add(batteryEmptyButton);
         batteryEmptyButton.setSelected(true);
@@ -482,7 +698,7 @@ public class App extends javax.swing.JFrame {
         batteryEmptyButton.setToolTipText("Concerns the image that will be displayed when the tablet battery level is critical.");
         batteryEmptyButton.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
-                batteryEmptyButtonActionPerformed(evt);
+                slotButtonActionPerformed(evt);
             }
         });
         controlButtonSectionPanel.add(batteryEmptyButton);
@@ -492,7 +708,7 @@ public class App extends javax.swing.JFrame {
         powerOffButton.setToolTipText("Concerns the image that will be displayed when the tablet is turned off.");
         powerOffButton.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
-                powerOffButtonActionPerformed(evt);
+                slotButtonActionPerformed(evt);
             }
         });
         controlButtonSectionPanel.add(powerOffButton);
@@ -502,17 +718,27 @@ public class App extends javax.swing.JFrame {
         rebootingButton.setToolTipText("Concerns the image that will be displayed when the tablet is restarting.");
         rebootingButton.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
-                rebootingButtonActionPerformed(evt);
+                slotButtonActionPerformed(evt);
             }
         });
         controlButtonSectionPanel.add(rebootingButton);
 
+        controlButtonSectionGroup.add(sleepingButton);
+        sleepingButton.setText("Sleeping");
+        sleepingButton.setToolTipText("Concerns the image that will be displayed when the tablet is falling asleep.");
+        sleepingButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                slotButtonActionPerformed(evt);
+            }
+        });
+        controlButtonSectionPanel.add(sleepingButton);
+
         controlButtonSectionGroup.add(suspendedButton);
         suspendedButton.setText("Suspended");
         suspendedButton.setToolTipText("Concerns the image that will be displayed when the tablet is in standby.");
         suspendedButton.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
-                suspendedButtonActionPerformed(evt);
+                slotButtonActionPerformed(evt);
             }
         });
         controlButtonSectionPanel.add(suspendedButton);
@@ -713,30 +939,41 @@ public class App extends javax.swing.JFrame {
             if(this.connection == null) {
                 java.awt.CardLayout panel = (java.awt.CardLayout) this.connectionCardPanel.getLayout();
                 
-                Connection c = new Connection(user, password, ip, () -> {
-                    disconnectionDetected();
-                });
-                
-                boolean connected = this.<Boolean>execute("Connecting to the Remarkable 2 tablet...", () -> {
-                    return c.connect();
+                Connection c = new Connection(user, password, ip, new Connection.DisconnectionListener() {
+                    @Override
+                    public void disconnected() {
+                        EDT.execute(App.this::disconnectionDetected);
+                    }
+
+                    @Override
+                    public void reconnecting() {
+                        EDT.execute(() -> App.this.reconnecting(true));
+                    }
+
+                    @Override
+                    public void reconnected() {
+                        EDT.execute(() -> App.this.reconnecting(false));
+                    }
                 });
                 
-                if(connected) {
-                    this.connectionButton.setText("Disconnect");
-                    this.connectionButton.setSelected(true);
-                    this.connection = c;
-                    panel.show(this.connectionCardPanel, "CONNECTED");
-                    connected();
-                } else {
-                    this.connectionButton.setText("Connect");
-                    this.connectionButton.setSelected(false);
-                    this.ipField.setEnabled(true);
-                    this.userField.setEnabled(true);
-                    this.passField.setEnabled(true);
-                    this.connection = null;
-                    panel.show(this.connectionCardPanel, "NO_CONNECTED");
-                    showMessageDialog("Connection", "The program cannot connect to the Remarkable 2 tablet !\nCheck your settings.", javax.swing.JOptionPane.ERROR_MESSAGE);
-                }
+                this.<Boolean>execute("Connecting to the Remarkable 2 tablet...", c::connect).whenCompleteAsync((connected, ex) -> {
+                    if(connected != null && connected) {
+                        this.connectionButton.setText("Disconnect");
+                        this.connectionButton.setSelected(true);
+                        this.connection = c;
+                        panel.show(this.connectionCardPanel, "CONNECTED");
+                        connected();
+                    } else {
+                        this.connectionButton.setText("Connect");
+                        this.connectionButton.setSelected(false);
+                        this.ipField.setEnabled(true);
+                        this.userField.setEnabled(true);
+                        this.passField.setEnabled(true);
+                        this.connection = null;
+                        panel.show(this.connectionCardPanel, "NO_CONNECTED");
+                        showMessageDialog("Connection", "The program cannot connect to the Remarkable 2 tablet !\nCheck your settings.", javax.swing.JOptionPane.ERROR_MESSAGE);
+                    }
+                }, EDT.EXECUTOR);
             } else {
                 this.connection = null;
                 this.ipField.setEnabled(true);
@@ -747,25 +984,24 @@ public class App extends javax.swing.JFrame {
             if(this.connection != null) {
                 java.awt.CardLayout panel = (java.awt.CardLayout) this.connectionCardPanel.getLayout();
                 
-                boolean disconnected = this.<Boolean>execute("Disconnection in progress...", () -> {
-                    return this.connection.disconnect();
-                });
-                
-                if(disconnected) {
-                    this.connection = null;
-                    this.connectionButton.setText("Connect");
-                    this.connectionButton.setSelected(false);
-                    this.ipField.setEnabled(true);
-                    this.userField.setEnabled(true);
-                    this.passField.setEnabled(true);
-                    panel.show(this.connectionCardPanel, "NO_CONNECTED");
-                    disconnected();
-                } else {
-                    this.connectionButton.setText("Disconnect");
-                    this.connectionButton.setSelected(true);
-                    panel.show(this.connectionCardPanel, "CONNECTED");
-                    showMessageDialog("Connection", "The program cannot disconnect from the Remarkable 2 tablet !", javax.swing.JOptionPane.ERROR_MESSAGE);
-                }
+                Connection c = this.connection;
+                this.<Boolean>execute("Disconnection in progress...", c::disconnect).whenCompleteAsync((disconnected, ex) -> {
+                    if(disconnected != null && disconnected) {
+                        this.connection = null;
+                        this.connectionButton.setText("Connect");
+                        this.connectionButton.setSelected(false);
+                        this.ipField.setEnabled(true);
+                        this.userField.setEnabled(true);
+                        this.passField.setEnabled(true);
+                        panel.show(this.connectionCardPanel, "NO_CONNECTED");
+                        disconnected();
+                    } else {
+                        this.connectionButton.setText("Disconnect");
+                        this.connectionButton.setSelected(true);
+                        panel.show(this.connectionCardPanel, "CONNECTED");
+                        showMessageDialog("Connection", "The program cannot disconnect from the Remarkable 2 tablet !", javax.swing.JOptionPane.ERROR_MESSAGE);
+                    }
+                }, EDT.EXECUTOR);
             } else {
                 this.ipField.setEnabled(true);
                 this.userField.setEnabled(true);
@@ -775,64 +1011,19 @@ public class App extends javax.swing.JFrame {
     }//GEN-LAST:event_connectionButtonActionPerformed
 
     /**
-     * Événement déclenché lorsqu'un utilisateur clique sur le bouton "Battery Empty".
-     * Affiche la miniature de batterie vide dans l'interface utilisateur.
+     * Événement déclenché lorsqu'un utilisateur clique sur le bouton d'une image système ("Battery empty", "Power off", "Rebooting", "Sleeping" ou "Suspended").
+     * Affiche la miniature originale et la nouvelle miniature de l'image système sélectionnée dans l'interface utilisateur.
      *
      * @param evt L'événement d'action associé à cet événement.
      */
-    private void batteryEmptyButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_batteryEmptyButtonActionPerformed
-        javax.swing.JToggleButton button = (javax.swing.JToggleButton) evt.getSource();
-        if(button.isSelected()) {
-            showLeftMiniature(miniatureBatteryEmpty_original);
-            showRightMiniature(miniatureBatteryEmpty);
+    private void slotButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_slotButtonActionPerformed
+        Slot slot = selectedSlot();
+        if(slot != null) {
+            showLeftMiniature(this.originals.get(slot));
+            showRightMiniature(this.news.get(slot));
         }
-        uploadRightButton.setEnabled(rightMiniature != null);
-    }//GEN-LAST:event_batteryEmptyButtonActionPerformed
-
-    /**
-     * Événement déclenché lorsqu'un utilisateur clique sur le bouton "Power Off".
-     * Affiche la miniature de mise hors tension dans l'interface utilisateur.
-     *
-     * @param evt L'événement d'action associé à cet événement.
-     */
-    private void powerOffButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_powerOffButtonActionPerformed
-        javax.swing.JToggleButton button = (javax.swing.JToggleButton) evt.getSource();
-        if(button.isSelected()) {
-            showLeftMiniature(miniaturePowerOff_original);
-            showRightMiniature(miniaturePowerOff);
-        }
-        uploadRightButton.setEnabled(rightMiniature != null);
-    }//GEN-LAST:event_powerOffButtonActionPerformed
-
-    /**
-     * Événement déclenché lorsqu'un utilisateur clique sur le bouton "Rebooting".
-     * Affiche la miniature de redémarrage dans l'interface utilisateur.
-     *
-     * @param evt L'événement d'action associé à cet événement.
-     */
-    private void rebootingButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_rebootingButtonActionPerformed
-        javax.swing.JToggleButton button = (javax.swing.JToggleButton) evt.getSource();
-        if(button.isSelected()) {
-            showLeftMiniature(miniatureRebooting_original);
-            showRightMiniature(miniatureRebooting);
-        }
-        uploadRightButton.setEnabled(rightMiniature != null);
-    }//GEN-LAST:event_rebootingButtonActionPerformed
-
-    /**
-     * Événement déclenché lorsqu'un utilisateur clique sur le bouton "Suspended".
-     * Affiche la miniature de suspension dans l'interface utilisateur.
-     *
-     * @param evt L'événement d'action associé à cet événement.
-     */
-    private void suspendedButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_suspendedButtonActionPerformed
-        javax.swing.JToggleButton button = (javax.swing.JToggleButton) evt.getSource();
-        if(button.isSelected()) {
-            showLeftMiniature(miniatureSuspended_original);
-            showRightMiniature(miniatureSuspended);
-        }
-        uploadRightButton.setEnabled(rightMiniature != null);
-    }//GEN-LAST:event_suspendedButtonActionPerformed
+        uploadRightButton.setEnabled(rightMiniature != null && !this.reconnecting);
+    }//GEN-LAST:event_slotButtonActionPerformed
 
     /**
      * Événement déclenché lorsqu'un utilisateur clique sur le bouton "Upload" de l'image originale.
@@ -841,15 +1032,19 @@ public class App extends javax.swing.JFrame {
      * @param evt L'événement d'action associé à cet événement.
      */
     private void uploadLeftButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_uploadLeftButtonActionPerformed
-        if(this.connection != null && this.connection.isConnected() && leftMiniature != null) {
-            boolean uploaded = this.<Boolean>execute("The original image is being uploaded...", () -> {
-                return this.connection.upload(leftMiniature.getDatasFile(), "/usr/share/remarkable/" + leftMiniature.getNameFile());
-            });
-            if(uploaded) {
-                showMessageDialog("Uploading", "The original image has been successfully uploaded !", javax.swing.JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                showMessageDialog("Uploading", "The original image was not uploaded !", javax.swing.JOptionPane.ERROR_MESSAGE);
-            }
+        Slot slot = selectedSlot();
+        if(this.connection != null && this.connection.isConnected() && leftMiniature != null && slot != null) {
+            Connection c = this.connection;
+            Miniature miniature = leftMiniature;
+            this.<Boolean>transfer("The original image is being uploaded...", listener -> {
+                return c.upload(PngOptimizer.optimize(miniature.getDatasFile()), slot.getRemotePath(), listener);
+            }).whenCompleteAsync((uploaded, ex) -> {
+                if(uploaded != null && uploaded) {
+                    showMessageDialog("Uploading", "The original image has been successfully uploaded !", javax.swing.JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    showMessageDialog("Uploading", "The original image was not uploaded !", javax.swing.JOptionPane.ERROR_MESSAGE);
+                }
+            }, EDT.EXECUTOR);
         }
     }//GEN-LAST:event_uploadLeftButtonActionPerformed
 
@@ -860,15 +1055,19 @@ public class App extends javax.swing.JFrame {
      * @param evt L'événement d'action associé à cet événement.
      */
     private void uploadRightButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_uploadRightButtonActionPerformed
-        if(this.connection != null && this.connection.isConnected() && rightMiniature != null) {
-            boolean uploaded = this.<Boolean>execute("The new image is being uploaded...", () -> {
-                return this.connection.upload(rightMiniature.getDatasFile(), "/usr/share/remarkable/" + rightMiniature.getNameFile());
-            });
-            if(uploaded) {
-                showMessageDialog("Uploading", "The new image has been successfully uploaded !", javax.swing.JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                showMessageDialog("Uploading", "The new image was not uploaded !", javax.swing.JOptionPane.ERROR_MESSAGE);
-            }
+        Slot slot = selectedSlot();
+        if(this.connection != null && this.connection.isConnected() && rightMiniature != null && slot != null) {
+            Connection c = this.connection;
+            Miniature miniature = rightMiniature;
+            this.<Boolean>transfer("The new image is being uploaded...", listener -> {
+                return c.upload(PngOptimizer.optimize(miniature.getDatasFile()), slot.getRemotePath(), listener);
+            }).whenCompleteAsync((uploaded, ex) -> {
+                if(uploaded != null && uploaded) {
+                    showMessageDialog("Uploading", "The new image has been successfully uploaded !", javax.swing.JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    showMessageDialog("Uploading", "The new image was not uploaded !", javax.swing.JOptionPane.ERROR_MESSAGE);
+                }
+            }, EDT.EXECUTOR);
         }
     }//GEN-LAST:event_uploadRightButtonActionPerformed
 
@@ -905,7 +1104,7 @@ public class App extends javax.swing.JFrame {
 
     /**
      * Événement déclenché lorsqu'un utilisateur clique sur le bouton "Load".
-     * Charge une image à partir du disque local et l'affiche en tant que nouvelle image.
+     * Charge une image à partir du disque local et l'affiche en tant que nouvelle image. L'en-tête de l'image est vérifié avant la lecture du reste du fichier (voir {@link LocalImage#read(java.nio.file.Path)}).
      *
      * @param evt L'événement d'action associé à cet événement.
      */
@@ -918,33 +1117,21 @@ public class App extends javax.swing.JFrame {
         if(chooser.showOpenDialog(this) == javax.swing.JFileChooser.APPROVE_OPTION) {
             if(chooser.getSelectedFile().getAbsolutePath().toLowerCase().endsWith(".png")){
                 try {
-                    java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream();
-                    java.io.BufferedInputStream   fis = new java.io.BufferedInputStream(new java.io.FileInputStream(chooser.getSelectedFile()));
-                    byte[] buffer = new byte[1024]; // Taille du tampon de lecture
-                    int bytesRead;
-                    while ((bytesRead = fis.read(buffer)) != -1) {
-                        bos.write(buffer, 0, bytesRead);
-                    }   
-                    fis.close();
-                    bos.close();
-                    byte[] datas = bos.toByteArray();
-
-                    if(batteryEmptyButton.isSelected()) {
-                        showRightMiniature(this.miniatureBatteryEmpty = new Miniature(this, datas, "batteryempty.png"));
-                    } else if (powerOffButton.isSelected()) {
-                        showRightMiniature(this.miniaturePowerOff = new Miniature(this, datas, "poweroff.png"));
-                    } else if (rebootingButton.isSelected()) {
-                        showRightMiniature(this.miniatureRebooting = new Miniature(this, datas, "rebooting.png"));
-                    } else if (suspendedButton.isSelected()) {
-                        showRightMiniature(this.miniatureSuspended = new Miniature(this, datas, "suspended.png"));
+                    byte[] datas = LocalImage.read(chooser.getSelectedFile().toPath());
+
+                    Slot slot = selectedSlot();
+                    if(slot != null) {
+                        Miniature miniature = new Miniature(this, datas, slot.getFileName());
+                        this.news.put(slot, miniature);
+                        showRightMiniature(miniature);
                     }
-                } catch (java.io.IOException | MiniatureException ex) {
+                } catch (java.io.IOException | ScreenFormat.FormatException | MiniatureException ex) {
                     showMessageDialog("Loading", ex.getMessage(), javax.swing.JOptionPane.ERROR_MESSAGE);
                 }
             } else
                 showMessageDialog("Loading", "This is not a PNG image !", javax.swing.JOptionPane.ERROR_MESSAGE);
         }
-        uploadRightButton.setEnabled(rightMiniature != null);
+        uploadRightButton.setEnabled(rightMiniature != null && !this.reconnecting);
     }//GEN-LAST:event_loadButtonActionPerformed
 
     /**
@@ -959,31 +1146,27 @@ public class App extends javax.swing.JFrame {
 
     /**
      * Événement déclenché lorsqu'un utilisateur clique sur le bouton Default
-     * Charge l'image par défaut de la tablette Remarkable 2
+     * Affiche l'image par défaut de la tablette Remarkable 2 pour l'image système sélectionnée. Sa miniature est décodée en tâche de fond dès le démarrage, elle est donc affichée immédiatement (ou dès qu'elle est prête)
      * 
      * @param evt L'événement d'action associé à cet événement.
      */
     private void defaultButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_defaultButtonActionPerformed
-        try {
-            if (batteryEmptyButton.isSelected()) {
-                byte[] datas = loadOriginalImg("/com/jasonpercus/remarkable/assets/batteryempty_original.png");
-                if(datas != null)
-                    showRightMiniature(this.miniatureBatteryEmpty = new Miniature(this, datas, "batteryempty.png"));
-            } else if (powerOffButton.isSelected()) {
-                byte[] datas = loadOriginalImg("/com/jasonpercus/remarkable/assets/poweroff_original.png");
-                if(datas != null)
-                    showRightMiniature(this.miniaturePowerOff = new Miniature(this, datas, "poweroff.png"));
-            } else if (rebootingButton.isSelected()) {
-                byte[] datas = loadOriginalImg("/com/jasonpercus/remarkable/assets/rebooting_original.png");
-                if(datas != null)
-                    showRightMiniature(this.miniatureRebooting = new Miniature(this, datas, "rebooting.png"));
-            } else if (suspendedButton.isSelected()) {
-                byte[] datas = loadOriginalImg("/com/jasonpercus/remarkable/assets/suspended_original.png");
-                if(datas != null)
-                    showRightMiniature(this.miniatureSuspended = new Miniature(this, datas, "suspended.png"));
+        Slot slot = selectedSlot();
+        if(slot == null)
+            return;
+        java.util.concurrent.CompletableFuture<Miniature> future = this.defaults.get(slot);
+        if(future.isCompletedExceptionally())
+            this.defaults.put(slot, future = decodeDefault(slot));
+        future.whenCompleteAsync((miniature, ex) -> {
+            if(miniature != null) {
+                this.news.put(slot, miniature);
+                if(selectedSlot() == slot)
+                    showRightMiniature(miniature);
+            } else {
+                showMessageDialog("Default", "The default image cannot be loaded !", javax.swing.JOptionPane.ERROR_MESSAGE);
             }
-        } catch (java.io.IOException | MiniatureException ex) {}
-        uploadRightButton.setEnabled(rightMiniature != null);
+            uploadRightButton.setEnabled(rightMiniature != null && !this.reconnecting);
+        }, EDT.EXECUTOR);
     }//GEN-LAST:event_defaultButtonActionPerformed
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
@@ -1014,6 +1197,7 @@ public class App extends javax.swing.JFrame {
     private javax.swing.JPanel rightSectionPanel;
     private javax.swing.JButton saveAsButton;
     private javax.swing.JSeparator separator;
+    private javax.swing.JToggleButton sleepingButton;
     private javax.swing.JToggleButton suspendedButton;
     private javax.swing.JButton uploadLeftButton;
     private javax.swing.JButton uploadRightButton;
@@ -1023,30 +1207,4 @@ public class App extends javax.swing.JFrame {
     
     
     
-//CLASS
-    /**
-     * Une exception qui indique une erreur lors de l'exécution d'une opération.
-     * @author JasonPercus
-     * @version 1.0
-     */
-    private class ExecutionException extends RuntimeException {
-
-
-
-    //CONSTRUCTOR
-        /**
-         * Construit une nouvelle instance d'ExecutionException avec la cause spécifiée.
-         *
-         * @param cause La cause de cette exception.
-         */
-        public ExecutionException(Throwable cause) {
-            super(cause);
-        }
-
-
-
-    }
-
-    
-    
 }
\ No newline at end of file
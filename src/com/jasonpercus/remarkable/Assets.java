@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+/**
+ * Classe utilitaire qui charge les ressources embarquées dans l'application (dossier assets).
+ * Les images d'origine de la tablette (*_original.png, une par {@link Slot}) sont immuables : elles ne sont lues qu'une seule fois puis conservées en mémoire.
+ * Cette classe est thread-safe.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Assets {
+    
+    
+    
+//CONSTANTES
+    /**
+     * Le dossier des ressources embarquées
+     */
+    public final static String DIRECTORY = "/com/jasonpercus/remarkable/assets/";
+
+    /**
+     * Les images d'origine déjà chargées, indexées par nom
+     */
+    private final static java.util.Map<String, byte[]> CACHE = new java.util.concurrent.ConcurrentHashMap<>();
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private Assets() {
+
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Renvoie l'image d'origine d'une image système. Elle est lue lors du premier appel, puis conservée en mémoire. Une lecture en échec n'est pas conservée et sera retentée au prochain appel.
+     * Si plusieurs threads la demandent pour la première fois en même temps, elle peut être lue plusieurs fois, mais un seul tableau est conservé et renvoyé à tous.
+     * Le tableau renvoyé est partagé : il ne doit pas être modifié.
+     *
+     * @param name Le nom de l'image système (ex: suspended).
+     * @return Les données de l'image d'origine.
+     * @throws java.io.IOException Si l'image ne peut pas être lue.
+     */
+    public static byte[] original(String name) throws java.io.IOException {
+        byte[] datas = CACHE.get(name);
+        if (datas == null) {
+            datas = read(DIRECTORY + name + "_original.png");
+            byte[] previous = CACHE.putIfAbsent(name, datas);
+            if (previous != null)
+                datas = previous;
+        }
+        return datas;
+    }
+
+    /**
+     * Lit une ressource embarquée en une seule fois dans un tableau de la taille exacte de la ressource (sans cache).
+     *
+     * @param pathResource Le chemin de la ressource (ex: /com/jasonpercus/remarkable/assets/suspended_original.png).
+     * @return Les données de la ressource.
+     * @throws java.io.IOException Si la ressource n'existe pas ou ne peut pas être lue.
+     */
+    public static byte[] read(String pathResource) throws java.io.IOException {
+        java.net.URL url = Assets.class.getResource(pathResource);
+        if (url == null)
+            throw new java.io.FileNotFoundException(pathResource);
+        java.net.URLConnection connection = url.openConnection();
+        try (java.io.InputStream is = connection.getInputStream()) {
+            long size = connection.getContentLengthLong();
+            if (size < 0 || size > Integer.MAX_VALUE - 8)
+                return is.readAllBytes();
+            byte[] datas = new byte[(int) size];
+            int n = is.readNBytes(datas, 0, datas.length);
+            if (n != datas.length || is.read() != -1)
+                throw new java.io.IOException("The size of " + pathResource + " has changed while reading !");
+            return datas;
+        }
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,336 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+/**
+ * La classe Batch valide en une seule fois toutes les images PNG d'un dossier (ex: avant un déploiement sur un parc de tablettes) et produit leurs miniatures.
+ * Chaque image est décodée depuis un fichier projeté en mémoire ({@link LocalImage#decode(java.nio.file.Path)}), ce qui vérifie son en-tête puis l'image entière, et est réduite comme une miniature ({@link Thumbnails#reduce(java.awt.image.BufferedImage)}). Les images sont traitées en parallèle par un stream parallèle exécuté dans un {@link java.util.concurrent.ForkJoinPool} dédié, de sorte que le parallélisme ne dépend pas du pool commun.
+ * Le résultat ({@link Report}) peut être écrit sous forme d'un rapport texte et d'une planche contact des miniatures.
+ * Aucune classe Swing n'est chargée : le traitement peut être lancé par la ligne de commande ({@link Cli}) sur une machine sans écran.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Batch {
+    
+    
+    
+//CONSTANTE
+    /**
+     * Le nombre de miniatures par ligne de la planche contact
+     */
+    public final static int COLUMNS = 8;
+    
+    
+    
+//ATTRIBUT
+    /**
+     * Le nombre maximum d'images traitées simultanément
+     */
+    private final int parallelism;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Crée un traitement par lot.
+     *
+     * @param parallelism Le nombre maximum d'images traitées simultanément (au moins 1).
+     */
+    public Batch(int parallelism) {
+        this.parallelism = Math.max(1, parallelism);
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Valide et réduit toutes les images PNG d'un dossier (sans parcourir ses sous-dossiers).
+     *
+     * @param directory Le dossier des images.
+     * @return Le résultat du traitement, les images étant triées par nom de fichier.
+     * @throws java.io.IOException Si le dossier ne peut pas être lu.
+     * @throws InterruptedException Si le thread est interrompu pendant le traitement.
+     */
+    public Report run(java.nio.file.Path directory) throws java.io.IOException, InterruptedException {
+        java.util.List<java.nio.file.Path> files = new java.util.ArrayList<>();
+        try (java.nio.file.DirectoryStream<java.nio.file.Path> stream = java.nio.file.Files.newDirectoryStream(directory)) {
+            for (java.nio.file.Path file : stream) {
+                if (java.nio.file.Files.isRegularFile(file) && file.getFileName().toString().toLowerCase(java.util.Locale.ROOT).endsWith(".png"))
+                    files.add(file);
+            }
+        }
+        java.util.Collections.sort(files);
+
+        long start = System.nanoTime();
+        java.util.concurrent.ForkJoinPool pool = new java.util.concurrent.ForkJoinPool(this.parallelism);
+        try {
+            java.util.List<Result> results = pool.submit(() -> files.parallelStream().map(Batch::process).collect(java.util.stream.Collectors.toList())).get();
+            return new Report(results, System.nanoTime() - start);
+        } catch (java.util.concurrent.ExecutionException ex) {
+            throw new java.io.IOException(ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    
+    
+//METHODE PRIVATE STATIC
+    /**
+     * Valide et réduit une image.
+     * Une erreur du décodeur (ex: une IllegalArgumentException levée par ImageIO) rend l'image invalide au lieu d'interrompre tout le traitement.
+     *
+     * @param file Le fichier de l'image.
+     * @return Le résultat de l'image.
+     */
+    private static Result process(java.nio.file.Path file) {
+        try {
+            return new Result(file, Thumbnails.reduce(LocalImage.decode(file)), null);
+        } catch (java.io.IOException | ScreenFormat.FormatException ex) {
+            return new Result(file, null, ex.getMessage());
+        } catch (RuntimeException ex) {
+            return new Result(file, null, ex.getMessage() != null ? ex.getMessage() : ex.toString());
+        }
+    }
+    
+    
+    
+//CLASS
+    /**
+     * Cette classe représente le résultat de la validation d'une image.
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public static class Result {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * Le fichier de l'image
+         */
+        private final java.nio.file.Path file;
+
+        /**
+         * La miniature de l'image, ou null si l'image est invalide
+         */
+        private final java.awt.image.BufferedImage thumbnail;
+
+        /**
+         * La raison du rejet de l'image, ou null si l'image est valide
+         */
+        private final String error;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée le résultat d'une image.
+         * @param file Le fichier de l'image
+         * @param thumbnail La miniature de l'image, ou null si l'image est invalide
+         * @param error La raison du rejet de l'image, ou null si l'image est valide
+         */
+        private Result(java.nio.file.Path file, java.awt.image.BufferedImage thumbnail, String error) {
+            this.file      = file;
+            this.thumbnail = thumbnail;
+            this.error     = error;
+        }
+    
+    
+    
+    //GETTERS
+        /**
+         * Renvoie le fichier de l'image.
+         * @return Le fichier de l'image
+         */
+        public java.nio.file.Path getFile() {
+            return this.file;
+        }
+
+        /**
+         * Renvoie la miniature de l'image.
+         * @return La miniature de l'image, ou null si l'image est invalide
+         */
+        public java.awt.image.BufferedImage getThumbnail() {
+            return this.thumbnail;
+        }
+
+        /**
+         * Renvoie la raison du rejet de l'image.
+         * @return La raison du rejet de l'image, ou null si l'image est valide
+         */
+        public String getError() {
+            return this.error;
+        }
+
+        /**
+         * Détermine si l'image est valide.
+         * @return true si l'image est une image système valide, sinon false
+         */
+        public boolean isValid() {
+            return this.error == null;
+        }
+    
+    
+    
+    }
+    
+    
+    
+    /**
+     * Cette classe représente le résultat du traitement d'un dossier.
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public static class Report {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * Les résultats des images, triés par nom de fichier
+         */
+        private final java.util.List<Result> results;
+
+        /**
+         * La durée du traitement (en nanosecondes)
+         */
+        private final long duration;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée le résultat du traitement d'un dossier.
+         * @param results Les résultats des images
+         * @param duration La durée du traitement (en nanosecondes)
+         */
+        private Report(java.util.List<Result> results, long duration) {
+            this.results  = java.util.Collections.unmodifiableList(results);
+            this.duration = duration;
+        }
+    
+    
+    
+    //GETTERS
+        /**
+         * Renvoie les résultats des images.
+         * @return Les résultats des images, triés par nom de fichier
+         */
+        public java.util.List<Result> getResults() {
+            return this.results;
+        }
+
+        /**
+         * Renvoie le nombre d'images invalides.
+         * @return Le nombre d'images invalides
+         */
+        public int getInvalidCount() {
+            int count = 0;
+            for (Result result : this.results) {
+                if (!result.isValid())
+                    count++;
+            }
+            return count;
+        }
+
+        /**
+         * Renvoie la durée du traitement.
+         * @return La durée du traitement (en nanosecondes)
+         */
+        public long getDuration() {
+            return this.duration;
+        }
+
+        /**
+         * Renvoie le débit du traitement.
+         * @return Le nombre d'images traitées par seconde
+         */
+        public double getThroughput() {
+            return this.duration <= 0 ? 0 : this.results.size() * 1e9 / this.duration;
+        }
+    
+    
+    
+    //METHODES PUBLICS
+        /**
+         * Écrit le rapport texte du traitement : une ligne par image (VALID ou INVALID suivi de la raison du rejet), puis une ligne de synthèse avec le débit.
+         * @param file Le fichier du rapport
+         * @throws java.io.IOException Si le rapport ne peut pas être écrit
+         */
+        public void writeReport(java.nio.file.Path file) throws java.io.IOException {
+            java.util.List<String> lines = new java.util.ArrayList<>(this.results.size() + 1);
+            for (Result result : this.results)
+                lines.add((result.isValid() ? "VALID   " : "INVALID ") + result.getFile().getFileName() + (result.isValid() ? "" : " (" + result.getError() + ")"));
+            lines.add(toString());
+            java.nio.file.Files.write(file, lines, java.nio.charset.StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Écrit la planche contact des miniatures des images valides ({@link Batch#COLUMNS} miniatures par ligne, chacune légendée du nom de son fichier) au format PNG.
+         * @param file Le fichier de la planche contact
+         * @throws java.io.IOException Si la planche contact ne peut pas être écrite
+         */
+        public void writeContactSheet(java.nio.file.Path file) throws java.io.IOException {
+            java.util.List<Result> valids = new java.util.ArrayList<>();
+            for (Result result : this.results) {
+                if (result.isValid())
+                    valids.add(result);
+            }
+            int width   = ScreenFormat.WIDTH / Thumbnails.PROPORTION;
+            int height  = ScreenFormat.HEIGHT / Thumbnails.PROPORTION;
+            int label   = 16;
+            int margin  = 8;
+            int columns = Math.max(1, Math.min(COLUMNS, valids.size()));
+            int rows    = Math.max(1, (valids.size() + columns - 1) / columns);
+
+            java.awt.image.BufferedImage sheet = new java.awt.image.BufferedImage(margin + columns * (width + margin), margin + rows * (height + label + margin), java.awt.image.BufferedImage.TYPE_BYTE_GRAY);
+            java.awt.Graphics2D g = sheet.createGraphics();
+            try {
+                g.setColor(java.awt.Color.WHITE);
+                g.fillRect(0, 0, sheet.getWidth(), sheet.getHeight());
+                g.setColor(java.awt.Color.BLACK);
+                g.setRenderingHint(java.awt.RenderingHints.KEY_TEXT_ANTIALIASING, java.awt.RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+                g.setFont(new java.awt.Font(java.awt.Font.SANS_SERIF, java.awt.Font.PLAIN, 11));
+                java.awt.FontMetrics metrics = g.getFontMetrics();
+                for (int i = 0; i < valids.size(); i++) {
+                    int x = margin + (i % columns) * (width + margin);
+                    int y = margin + (i / columns) * (height + label + margin);
+                    g.drawImage(valids.get(i).getThumbnail(), x, y, width, height, null);
+                    g.drawRect(x - 1, y - 1, width + 1, height + 1);
+                    String name = valids.get(i).getFile().getFileName().toString();
+                    while (name.length() > 1 && metrics.stringWidth(name) > width)
+                        name = name.substring(0, name.length() - 1);
+                    g.drawString(name, x, y + height + metrics.getAscent() + 2);
+                }
+            } finally {
+                g.dispose();
+            }
+            if (!javax.imageio.ImageIO.write(sheet, "png", file.toFile()))
+                throw new java.io.IOException("The contact sheet cannot be written !");
+        }
+
+        /**
+         * Renvoie la synthèse du traitement.
+         * @return La synthèse du traitement (ex: 42 images, 1 invalid, 0.85 s, 49.4 images/s)
+         */
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ROOT, "%d images, %d invalid, %.2f s, %.1f images/s", this.results.size(), getInvalidCount(), this.duration / 1e9, getThroughput());
+        }
+    
+    
+    
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,394 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import com.jasonpercus.util.Dither;
+import com.jasonpercus.util.PngOptimizer;
+
+
+
+/**
+ * La classe Cli est le point d'entrée headless de l'application.
+ * Elle permet de télécharger, valider (une à une ou par dossier entier) et téléverser les images systèmes d'une ou plusieurs tablettes Remarkable 2 depuis la ligne de commande ou un fichier manifeste, sans jamais charger Swing.
+ * Elle est destinée aux scripts (cron, intégration continue...) et renvoie un code de sortie significatif.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Cli {
+    
+    
+    
+//CONSTANTES
+    /**
+     * Code de sortie lorsque toutes les opérations ont réussi
+     */
+    public final static int EXIT_OK = 0;
+
+    /**
+     * Code de sortie lorsque les arguments sont invalides
+     */
+    public final static int EXIT_USAGE = 1;
+
+    /**
+     * Code de sortie lorsqu'une image locale ne respecte pas le format d'une image système
+     */
+    public final static int EXIT_INVALID_IMAGE = 2;
+
+    /**
+     * Code de sortie lorsqu'une tablette est injoignable
+     */
+    public final static int EXIT_CONNECTION = 3;
+
+    /**
+     * Code de sortie lorsqu'un transfert de fichier a échoué
+     */
+    public final static int EXIT_TRANSFER = 4;
+
+    /**
+     * L'aide affichée lorsque les arguments sont invalides
+     */
+    private final static String USAGE = String.join(System.lineSeparator(),
+        "Usage: java -Djava.awt.headless=true -cp ScreenRemarkable2.jar " + Cli.class.getName() + " [options] [command...]",
+        "",
+        "Options:",
+        "  --host <ip>[,<ip>...]  IP address(es) of the tablet(s) (default: 10.11.99.1)",
+        "  --user <user>          SSH user (default: root)",
+        "  --password <password>  SSH password (default: environment variable REMARKABLE_PASSWORD)",
+        "  --parallel <n>         Maximum number of tablets uploaded to simultaneously (default: number of hosts)",
+        "  --manifest <file>      File containing one command per line (# starts a comment)",
+        "  --dither <method>      Quantizes uploaded images to the " + ScreenFormat.GRAY_LEVELS + " gray levels of the panel (floyd-steinberg or bayer)",
+        "",
+        "Commands:",
+        "  validate <file>        Checks that a local PNG is a valid system image",
+        "  download <slot> <file> Downloads a system image of the tablet (single host only)",
+        "  upload <slot> <file>   Validates, losslessly recompresses then uploads a local PNG as a system image",
+        "  batch <dir> <out>      Validates every PNG of a directory in parallel, then writes report.txt and contact-sheet.png into <out>",
+        "",
+        "Slots: " + String.join(", ", Slot.names()),
+        "",
+        "Exit codes: 0 = success, 1 = usage, 2 = invalid image, 3 = connection, 4 = transfer"
+    );
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private Cli() {
+
+    }
+    
+    
+    
+//MAIN
+    /**
+     * Lance l'application en mode headless
+     * @param args Correspond aux options et aux commandes à exécuter
+     */
+    public static void main(String[] args) {
+        if (System.getProperty("java.awt.headless") == null)
+            System.setProperty("java.awt.headless", "true");
+        System.exit(run(args, System.out, System.err));
+    }
+    
+    
+    
+//METHODE PUBLIC STATIC
+    /**
+     * Exécute les commandes spécifiées et renvoie le code de sortie correspondant.
+     *
+     * @param args Correspond aux options et aux commandes à exécuter.
+     * @param out Le flux sur lequel écrire les messages d'information.
+     * @param err Le flux sur lequel écrire les messages d'erreur.
+     * @return Le code de sortie ({@link #EXIT_OK}, {@link #EXIT_USAGE}, {@link #EXIT_INVALID_IMAGE}, {@link #EXIT_CONNECTION} ou {@link #EXIT_TRANSFER}).
+     */
+    public static int run(String[] args, java.io.PrintStream out, java.io.PrintStream err) {
+        String hosts    = "10.11.99.1";
+        String user     = "root";
+        String password = System.getenv("REMARKABLE_PASSWORD");
+        int parallel    = 0;
+        Dither.Method dither = null;
+        java.util.List<String[]> commands = new java.util.ArrayList<>();
+
+        try {
+            java.util.List<String> words = new java.util.ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--host":
+                        hosts = value(args, ++i);
+                        break;
+                    case "--user":
+                        user = value(args, ++i);
+                        break;
+                    case "--password":
+                        password = value(args, ++i);
+                        break;
+                    case "--parallel":
+                        parallel = parallelism(value(args, ++i));
+                        break;
+                    case "--dither":
+                        dither = method(value(args, ++i));
+                        break;
+                    case "--manifest":
+                        for (String line : java.nio.file.Files.readAllLines(java.nio.file.Paths.get(value(args, ++i)), java.nio.charset.StandardCharsets.UTF_8)) {
+                            int comment = line.indexOf('#');
+                            String trimmed = (comment < 0 ? line : line.substring(0, comment)).trim();
+                            if (!trimmed.isEmpty())
+                                parse(java.util.Arrays.asList(trimmed.split("\\s+")), commands);
+                        }
+                        break;
+                    default:
+                        words.add(args[i]);
+                        break;
+                }
+            }
+            parse(words, commands);
+        } catch (IllegalArgumentException | java.io.IOException ex) {
+            err.println(ex.getMessage());
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        if (commands.isEmpty()) {
+            err.println(USAGE);
+            return EXIT_USAGE;
+        }
+
+        //Validation de toutes les images locales avant toute connexion
+        java.util.Map<String, byte[]> uploads = new java.util.LinkedHashMap<>();
+        java.util.List<String[]> downloads = new java.util.ArrayList<>();
+        boolean needConnection = false;
+        for (String[] command : commands) {
+            switch (command[0]) {
+                case "batch":
+                    try {
+                        Batch.Report report = new Batch(Runtime.getRuntime().availableProcessors()).run(java.nio.file.Paths.get(command[1]));
+                        java.nio.file.Path output = java.nio.file.Files.createDirectories(java.nio.file.Paths.get(command[2]));
+                        report.writeReport(output.resolve("report.txt"));
+                        report.writeContactSheet(output.resolve("contact-sheet.png"));
+                        for (Batch.Result result : report.getResults()) {
+                            if (!result.isValid())
+                                err.println("Invalid: " + result.getFile() + " (" + result.getError() + ")");
+                        }
+                        out.println("Batch: " + command[1] + " (" + report + ")");
+                        if (report.getInvalidCount() > 0)
+                            return EXIT_INVALID_IMAGE;
+                    } catch (java.io.IOException ex) {
+                        err.println("Batch failed: " + command[1] + " (" + ex.getMessage() + ")");
+                        return EXIT_USAGE;
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return EXIT_USAGE;
+                    }
+                    break;
+                case "validate":
+                case "upload":
+                    String file = command[command.length - 1];
+                    try {
+                        byte[] datas = LocalImage.read(java.nio.file.Paths.get(file));
+                        ScreenFormat.decode(datas);
+                        if (command[0].equals("upload")) {
+                            if (dither != null) {
+                                int length = datas.length;
+                                datas = quantize(datas, dither);
+                                out.println("Dithered: " + file + " (" + length + " -> " + datas.length + " bytes)");
+                            }
+                            byte[] optimized = PngOptimizer.optimize(datas);
+                            uploads.put(Slot.of(command[1]).getRemotePath(), optimized);
+                            if (optimized != datas)
+                                out.println("Optimized: " + file + " (" + datas.length + " -> " + optimized.length + " bytes)");
+                            needConnection = true;
+                        }
+                        out.println("Valid: " + file);
+                    } catch (java.io.IOException | ScreenFormat.FormatException ex) {
+                        err.println("Invalid: " + file + " (" + ex.getMessage() + ")");
+                        return EXIT_INVALID_IMAGE;
+                    }
+                    break;
+                default:
+                    downloads.add(command);
+                    needConnection = true;
+                    break;
+            }
+        }
+        if (!needConnection)
+            return EXIT_OK;
+
+        if (password == null) {
+            err.println("No password given (--password or REMARKABLE_PASSWORD)");
+            return EXIT_USAGE;
+        }
+        String[] listHosts = hosts.split(",");
+        if (!downloads.isEmpty() && listHosts.length > 1) {
+            err.println("The download command can only be used with a single host");
+            return EXIT_USAGE;
+        }
+
+        Fleet fleet = new Fleet(parallel > 0 ? parallel : listHosts.length);
+        try {
+            for (String host : listHosts)
+                fleet.add(host.trim(), user, password);
+
+            //Téléchargements (un seul hôte)
+            for (String[] command : downloads) {
+                String host = fleet.getHosts().first();
+                Connection connection = fleet.get(host);
+                if (connection == null) {
+                    err.println("Unreachable: " + host);
+                    return EXIT_CONNECTION;
+                }
+                byte[] datas = connection.download(Slot.of(command[1]).getRemotePath());
+                if (datas == null) {
+                    err.println("Download failed: " + command[1] + " from " + host);
+                    return EXIT_TRANSFER;
+                }
+                try {
+                    java.nio.file.Files.write(java.nio.file.Paths.get(command[2]), datas);
+                } catch (java.io.IOException ex) {
+                    err.println("Cannot write " + command[2] + " (" + ex.getMessage() + ")");
+                    return EXIT_TRANSFER;
+                }
+                out.println("Downloaded: " + command[1] + " from " + host + " to " + command[2]);
+            }
+
+            //Téléversements (tous les hôtes en parallèle)
+            if (uploads.isEmpty())
+                return EXIT_OK;
+            int code = EXIT_OK;
+            for (java.util.Map.Entry<String, Boolean> result : fleet.push(uploads).entrySet()) {
+                if (result.getValue()) {
+                    double throughput = fleet.getThroughput(result.getKey());
+                    out.println("Uploaded: " + result.getKey() + (throughput < 0 ? " (unchanged)" : String.format(" (%.1f KB/s)", throughput / 1024)));
+                } else if (fleet.getHealth(result.getKey()) == Fleet.Health.UNREACHABLE) {
+                    err.println("Unreachable: " + result.getKey());
+                    code = Math.max(code, EXIT_CONNECTION);
+                } else {
+                    err.println("Upload failed: " + result.getKey());
+                    code = EXIT_TRANSFER;
+                }
+            }
+            return code;
+        } finally {
+            fleet.close();
+        }
+    }
+    
+    
+    
+//METHODES PRIVATES STATICS
+    /**
+     * Renvoie la valeur d'une option.
+     *
+     * @param args Les arguments de la ligne de commande.
+     * @param index L'index de la valeur de l'option.
+     * @return La valeur de l'option.
+     * @throws IllegalArgumentException Si la valeur de l'option est absente.
+     */
+    private static String value(String[] args, int index) {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Missing value for option " + args[index - 1]);
+        return args[index];
+    }
+
+    /**
+     * Renvoie le nombre maximum de tablettes traitées simultanément.
+     *
+     * @param value La valeur de l'option --parallel.
+     * @return Le nombre maximum de tablettes traitées simultanément (au moins 1).
+     * @throws IllegalArgumentException Si la valeur n'est pas un entier strictement positif.
+     */
+    private static int parallelism(String value) {
+        try {
+            int parallel = Integer.parseInt(value);
+            if (parallel > 0)
+                return parallel;
+        } catch (NumberFormatException ex) {
+            // Message d'erreur ci-dessous
+        }
+        throw new IllegalArgumentException("Invalid value for option --parallel: " + value);
+    }
+
+    /**
+     * Renvoie la méthode de tramage correspondant à son nom.
+     *
+     * @param name Le nom de la méthode (floyd-steinberg ou bayer, sans tenir compte de la casse).
+     * @return La méthode de tramage.
+     * @throws IllegalArgumentException Si aucune méthode ne porte ce nom.
+     */
+    private static Dither.Method method(String name) {
+        for (Dither.Method method : Dither.Method.values()) {
+            if (method.name().replace('_', '-').equalsIgnoreCase(name))
+                return method;
+        }
+        throw new IllegalArgumentException("Unknown dither method: " + name);
+    }
+
+    /**
+     * Réduit une image aux niveaux de gris de l'écran de la tablette (voir {@link Dither}) et la ré-encode en PNG.
+     *
+     * @param datas Les données de l'image PNG.
+     * @param method La méthode de tramage.
+     * @return Les données de l'image réduite.
+     * @throws java.io.IOException Si l'image ne peut pas être décodée ou encodée.
+     * @throws ScreenFormat.FormatException Si les données ne sont pas une image système.
+     */
+    private static byte[] quantize(byte[] datas, Dither.Method method) throws java.io.IOException, ScreenFormat.FormatException {
+        java.awt.image.BufferedImage image = Dither.quantize(ScreenFormat.decode(datas), ScreenFormat.GRAY_LEVELS, method);
+        java.io.ByteArrayOutputStream bos = new java.io.ByteArrayOutputStream(datas.length);
+        if (!javax.imageio.ImageIO.write(image, "png", bos))
+            throw new java.io.IOException("The dithered image cannot be encoded !");
+        return bos.toByteArray();
+    }
+
+    /**
+     * Découpe une suite de mots en commandes et vérifie leur syntaxe.
+     *
+     * @param words Les mots à découper.
+     * @param commands La liste dans laquelle ajouter les commandes trouvées.
+     * @throws IllegalArgumentException Si une commande est inconnue ou mal formée, ou si un emplacement reçoit plusieurs images.
+     */
+    private static void parse(java.util.List<String> words, java.util.List<String[]> commands) {
+        int i = 0;
+        while (i < words.size()) {
+            String name = words.get(i);
+            int nbArgs;
+            switch (name) {
+                case "validate":
+                    nbArgs = 1;
+                    break;
+                case "download":
+                case "upload":
+                case "batch":
+                    nbArgs = 2;
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown command: " + name);
+            }
+            if (i + nbArgs >= words.size())
+                throw new IllegalArgumentException("Missing argument for command " + name);
+            String[] command = words.subList(i, i + nbArgs + 1).toArray(new String[0]);
+            if (!name.equals("batch") && nbArgs == 2 && Slot.of(command[1]) == null)
+                throw new IllegalArgumentException("Unknown slot: " + command[1]);
+            if (name.equals("upload")) {
+                for (String[] other : commands) {
+                    if (other[0].equals("upload") && Slot.of(other[1]) == Slot.of(command[1]))
+                        throw new IllegalArgumentException("Duplicate upload for slot " + command[1]);
+                }
+            }
+            commands.add(command);
+            i += nbArgs + 1;
+        }
+    }
+
+
+
+}
\ No newline at end of file
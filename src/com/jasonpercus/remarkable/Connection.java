@@ -11,11 +11,14 @@ package com.jasonpercus.remarkable;
 
 
 import com.jcraft.jsch.Channel;
+import com.jcraft.jsch.ChannelExec;
 import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
 import com.jcraft.jsch.Session;
+import com.jcraft.jsch.SftpATTRS;
 import com.jcraft.jsch.SftpException;
+import com.jcraft.jsch.SftpProgressMonitor;
 
 
 
@@ -29,6 +32,49 @@ public class Connection {
 
     
     
+//CONSTANTES
+    /**
+     * Le nombre maximum de canaux SFTP ouverts simultanément sur la session lors d'un téléchargement groupé.
+     */
+    private final static int MAX_PARALLEL_CHANNELS = 4;
+    
+    /**
+     * L'intervalle (en millisecondes) entre deux messages keep-alive envoyés à l'hôte distant.
+     */
+    private final static int KEEP_ALIVE_INTERVAL = 5000;
+    
+    /**
+     * Le nombre de messages keep-alive sans réponse au bout duquel la session est considérée comme perdue.
+     */
+    private final static int KEEP_ALIVE_COUNT_MAX = 3;
+    
+    /**
+     * Le nombre maximum de tentatives de reconnexion après une déconnexion intempestive.
+     */
+    private final static int RECONNECT_MAX_ATTEMPTS = 6;
+    
+    /**
+     * Le délai (en millisecondes) avant la première tentative de reconnexion. Il double à chaque nouvelle tentative.
+     */
+    private final static long RECONNECT_INITIAL_DELAY = 250;
+    
+    /**
+     * Le délai maximum (en millisecondes) entre deux tentatives de reconnexion.
+     */
+    private final static long RECONNECT_MAX_DELAY = 8000;
+    
+    /**
+     * Le délai maximum (en millisecondes) par défaut pour établir la session SSH. Il peut être modifié par la propriété système remarkable.connect.timeout.
+     */
+    private final static int DEFAULT_TIMEOUT = 2000;
+    
+    /**
+     * Le délai maximum (en millisecondes) d'attente du code de retour d'une commande distante une fois sa sortie entièrement lue. Passé ce délai, la commande est considérée comme ayant échoué.
+     */
+    private final static long EXEC_EXIT_TIMEOUT = 1000;
+
+    
+    
 //ATTRIBUTS
     /**
      * Le numéro de port utilisé pour la connexion SFTP.
@@ -54,6 +100,16 @@ public class Connection {
      * Correspond à l'objet qui sera mis au courant des déconnexions intempestives de la tablette au client
      */
     private final DisconnectionListener listener;
+    
+    /**
+     * L'instance JSch conservée pour établir (et rétablir) la session SSH.
+     */
+    private final JSch jsch;
+    
+    /**
+     * La configuration SSH conservée pour établir (et rétablir) la session SSH.
+     */
+    private final java.util.Properties config;
 
     /**
      * La session SSH établie avec l'hôte distant.
@@ -73,7 +129,7 @@ public class Connection {
     /**
      * Indique si la connexion est établie ou non.
      */
-    private boolean connected;
+    private volatile boolean connected;
     
     /**
      * Correspond au thread qui joue le rôle de monitor et qui vérifie continuellement si la connexion à la tablette est active ou pas
@@ -83,11 +139,36 @@ public class Connection {
     /**
      * Détermine qui a détecté la déconnexion de la tablette au programme 1 = Le moniteur détecte la déconnexion, 0 = l'utilisateur se déconnecte manuellement
      */
-    private int who;
+    private volatile int who;
+    
+    /**
+     * Correspond à la stratégie utilisée pour vérifier qu'un fichier a bien été téléversé
+     */
+    private Verification verification;
+    
+    /**
+     * Correspond à la manière dont un fichier est écrit sur l'hôte distant lors d'un téléversement
+     */
+    private UploadMode uploadMode;
+    
+    /**
+     * Détermine si un téléversement est ignoré lorsque le fichier distant est déjà identique aux données à téléverser
+     */
+    private boolean skipUnchanged;
+    
+    /**
+     * Correspond au délai maximum (en millisecondes) pour établir la session SSH
+     */
+    private int timeout;
+    
+    /**
+     * Correspond à l'objet qui sera mis au courant de la durée de chaque opération effectuée sur l'hôte distant
+     */
+    private volatile OperationListener operationListener;
 
     
     
-//CONSTRUCTOR
+//CONSTRUCTORS
     /**
      * Construit une nouvelle instance de Connection.
      *
@@ -97,12 +178,33 @@ public class Connection {
      * @param listener Correspond au listener qui sera mis au courant d'une déconnexion
      */
     public Connection(String username, String password, String remoteHost, DisconnectionListener listener) {
-        this.port       = 22;
-        this.username   = username;
-        this.password   = password;
-        this.remoteHost = remoteHost;
-        this.connected  = false;
-        this.listener   = listener;
+        this(username, password, remoteHost, 22, listener);
+    }
+
+    /**
+     * Construit une nouvelle instance de Connection sur un port SSH spécifique (par exemple un serveur SFTP local de test).
+     *
+     * @param username Le nom d'utilisateur pour l'authentification.
+     * @param password Le mot de passe pour l'authentification.
+     * @param remoteHost L'adresse de l'hôte distant auquel se connecter.
+     * @param port Le numéro de port SSH de l'hôte distant.
+     * @param listener Correspond au listener qui sera mis au courant d'une déconnexion
+     */
+    public Connection(String username, String password, String remoteHost, int port, DisconnectionListener listener) {
+        this.port          = port;
+        this.username      = username;
+        this.password      = password;
+        this.remoteHost    = remoteHost;
+        this.connected     = false;
+        this.listener      = listener;
+        this.verification  = Verification.CHECKSUM;
+        this.uploadMode    = UploadMode.ATOMIC;
+        this.skipUnchanged = true;
+        this.timeout       = Integer.getInteger("remarkable.connect.timeout", DEFAULT_TIMEOUT);
+        this.jsch          = new JSch();
+        this.config        = new java.util.Properties();
+        this.config.put("StrictHostKeyChecking", "no");
+        this.config.put("PreferredAuthentications", "password");
     }
 
     
@@ -117,38 +219,118 @@ public class Connection {
         return this.connected;
     }
 
+    /**
+     * Renvoie la stratégie utilisée pour vérifier qu'un fichier a bien été téléversé.
+     *
+     * @return La stratégie de vérification des téléversements.
+     */
+    public Verification getVerification() {
+        return this.verification;
+    }
+
+    /**
+     * Renvoie la manière dont un fichier est écrit sur l'hôte distant lors d'un téléversement.
+     *
+     * @return Le mode de téléversement.
+     */
+    public UploadMode getUploadMode() {
+        return this.uploadMode;
+    }
+
+    /**
+     * Détermine si un téléversement est ignoré lorsque le fichier distant est déjà identique aux données à téléverser.
+     *
+     * @return True si les fichiers inchangés ne sont pas téléversés, sinon false.
+     */
+    public boolean isSkipUnchanged() {
+        return this.skipUnchanged;
+    }
+
+    /**
+     * Renvoie le délai maximum pour établir la session SSH.
+     *
+     * @return Le délai maximum (en millisecondes).
+     */
+    public int getTimeout() {
+        return this.timeout;
+    }
+
+    /**
+     * Renvoie l'objet mis au courant de la durée de chaque opération effectuée sur l'hôte distant.
+     *
+     * @return Le listener des opérations, ou null s'il n'y en a pas.
+     */
+    public OperationListener getOperationListener() {
+        return this.operationListener;
+    }
+
+
+
+//SETTER
+    /**
+     * Modifie la stratégie utilisée pour vérifier qu'un fichier a bien été téléversé.
+     *
+     * @param verification La nouvelle stratégie de vérification des téléversements.
+     */
+    public void setVerification(Verification verification) {
+        this.verification = verification == null ? Verification.DOWNLOAD : verification;
+    }
+
+    /**
+     * Modifie la manière dont un fichier est écrit sur l'hôte distant lors d'un téléversement.
+     *
+     * @param uploadMode Le nouveau mode de téléversement.
+     */
+    public void setUploadMode(UploadMode uploadMode) {
+        this.uploadMode = uploadMode == null ? UploadMode.BACKUP : uploadMode;
+    }
+
+    /**
+     * Modifie le comportement d'un téléversement lorsque le fichier distant est déjà identique aux données à téléverser.
+     *
+     * @param skipUnchanged True pour ne pas téléverser les fichiers inchangés, false pour toujours les téléverser.
+     */
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * Modifie le délai maximum pour établir la session SSH. Il s'applique aux prochaines connexions (et reconnexions).
+     *
+     * @param timeout Le nouveau délai maximum (en millisecondes, 0 pour attendre indéfiniment).
+     */
+    public void setTimeout(int timeout) {
+        this.timeout = Math.max(0, timeout);
+    }
+
+    /**
+     * Modifie l'objet mis au courant de la durée de chaque opération effectuée sur l'hôte distant (négociation SSH, ouverture de canal, get, put, rename, rm, vérification...).
+     * Chaque opération est aussi enregistrée comme un évènement JFR (com.jasonpercus.remarkable.ConnectionOperation), que ce listener soit défini ou non.
+     *
+     * @param operationListener Le nouveau listener des opérations (peut être null).
+     */
+    public void setOperationListener(OperationListener operationListener) {
+        this.operationListener = operationListener;
+    }
+
     
     
 //METHODES PUBLICS
     /**
      * Établit une connexion SFTP avec l'hôte distant.
+     * La session envoie des messages keep-alive à l'hôte distant afin de détecter rapidement une connexion perdue. En cas de déconnexion intempestive, la connexion tente de se rétablir d'elle-même avant d'avertir le listener.
      *
      * @return True si la connexion est établie avec succès, sinon false.
      */
     public boolean connect() {
-        try {
-            java.util.Properties config = new java.util.Properties();
-            config.put("StrictHostKeyChecking", "no");
-            config.put("PreferredAuthentications", "password");
-
-            JSch jsch = new JSch();
-            this.session = jsch.getSession(this.username, this.remoteHost, this.port);
-            this.session.setPassword(this.password);
-            this.session.setConfig(config);
-            this.session.connect(2000); //2 secondes max d'attente
-            
-            this.channel = session.openChannel("sftp");
-            this.channel.connect();
-            
-            this.sftp = (ChannelSftp) channel;
-
+        stopMonitor();
+        this.who = 0;
+        if (openSession()) {
             this.monitor = new ConnectionMonitor();
             this.monitor.start();
-            
             return this.connected = true;
-        } catch (JSchException ex) {
-            return this.connected = false;
         }
+        return this.connected = false;
     }
 
     /**
@@ -164,7 +346,9 @@ public class Connection {
             this.channel.disconnect();
         if(this.session != null)
             this.session.disconnect();
-        return !(this.connected = false);
+        this.connected = false;
+        stopMonitor();
+        return true;
     }
 
     /**
@@ -219,22 +403,117 @@ public class Connection {
      * @return Les données du fichier téléchargé sous forme de tableau d'octets.
      */
     public byte[] download(String path) {
+        return download(path, null);
+    }
+
+    /**
+     * Télécharge le fichier spécifié depuis l'hôte distant en informant le listener de la progression du transfert.
+     * Le listener peut annuler le transfert en cours de route : le canal est alors aussitôt libéré et aucune donnée n'est renvoyée.
+     *
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @param listener Le listener informé de la progression du transfert (peut être null).
+     * @return Les données du fichier téléchargé sous forme de tableau d'octets, ou null en cas d'échec ou d'annulation.
+     */
+    public byte[] download(String path, TransferListener listener) {
         if (isConnected()) {
-            try {
-                java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
-                this.sftp.get(path, baos);
-                return baos.toByteArray();
-            } catch (SftpException ex) {
+            ProgressMonitor monitor = listener == null ? null : new ProgressMonitor(path, SftpProgressMonitor.UNKNOWN_SIZE, listener);
+            try (Timing timing = new Timing(Operation.GET, path)) {
+                byte[] datas = read(this.sftp, path, monitor);
+                if (monitor != null && monitor.isCancelled())
+                    return null;
+                timing.succeeded();
+                return datas;
+            } catch (SftpException | java.io.IOException ex) {
                 return null;
             }
         }
         return null;
     }
 
+    /**
+     * Ouvre un flux de lecture sur le fichier spécifié de l'hôte distant, sans le charger entièrement en mémoire.
+     * Le flux repose sur un canal SFTP dédié qui est refermé en même temps que le flux. Il peut donc être passé directement à {@link javax.imageio.ImageIO#read(java.io.InputStream)}.
+     *
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @return Le flux de lecture du fichier, ou null si le fichier ne peut pas être ouvert. Ce flux doit être fermé par l'appelant.
+     */
+    public java.io.InputStream openStream(String path) {
+        Session s = this.session;
+        if (!isConnected() || s == null)
+            return null;
+        ChannelSftp c = null;
+        try {
+            c = (ChannelSftp) openChannel(s, "sftp");
+            ChannelSftp channelStream = c;
+            return new java.io.FilterInputStream(c.get(path)) {
+                @Override
+                public void close() throws java.io.IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        channelStream.disconnect();
+                    }
+                }
+            };
+        } catch (JSchException | SftpException ex) {
+            if (c != null)
+                c.disconnect();
+            return null;
+        }
+    }
+
+    /**
+     * Télécharge simultanément plusieurs fichiers depuis l'hôte distant.
+     * Chaque fichier est récupéré sur son propre canal SFTP ouvert sur la session en cours, afin que les allers-retours réseau se chevauchent au lieu de s'additionner.
+     * Le listener est averti depuis le thread de téléchargement dès que les données d'un fichier sont disponibles, sans attendre les autres fichiers.
+     *
+     * @param paths Les chemins des fichiers sur l'hôte distant.
+     * @param listener Correspond au listener averti de l'arrivée de chaque fichier (peut être null).
+     * @return Les données de chaque fichier téléchargé, dans l'ordre des chemins (null pour un fichier qui n'a pas pu être téléchargé).
+     */
+    public java.util.Map<String, byte[]> download(java.util.List<String> paths, DownloadListener listener) {
+        java.util.Map<String, byte[]> result = new java.util.LinkedHashMap<>();
+        for (String path : paths)
+            result.put(path, null);
+        if (!isConnected() || paths.isEmpty())
+            return result;
+
+        int nbThreads = Math.min(paths.size(), MAX_PARALLEL_CHANNELS);
+        java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(nbThreads, (Runnable r) -> {
+            Thread thread = new Thread(r, "Connection SFTP Download");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            java.util.List<java.util.concurrent.Callable<byte[]>> tasks = new java.util.ArrayList<>();
+            for (String path : paths) {
+                tasks.add(() -> {
+                    byte[] datas = downloadOnNewChannel(path);
+                    if (listener != null)
+                        listener.downloaded(path, datas);
+                    return datas;
+                });
+            }
+            java.util.List<java.util.concurrent.Future<byte[]>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < paths.size(); i++) {
+                try {
+                    result.put(paths.get(i), futures.get(i).get());
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    result.put(paths.get(i), null);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
     /**
      * Téléverse un tableau d'octets vers l'hôte distant à l'emplacement spécifié.
      * Si une connexion est établie et que les données sont valides, le téléversement est effectué.
-     * Si le téléversement réussit, il est vérifié en téléchargeant à nouveau les données et en les comparant.
+     * Si le téléversement réussit, il est vérifié avec la stratégie de vérification de la connexion (voir {@link #setVerification(Verification)}).
      * En cas d'échec, les données originales sont restaurées.
      *
      * @param datas Les données à téléverser sous forme de tableau d'octets.
@@ -242,100 +521,1132 @@ public class Connection {
      * @return True si le téléversement est réussi, sinon false.
      */
     public boolean upload(byte[] datas, String path) {
+        return upload(datas, path, this.verification, null);
+    }
+
+    /**
+     * Téléverse un tableau d'octets vers l'hôte distant à l'emplacement spécifié, en informant le listener de la progression du transfert.
+     * Le téléversement est vérifié avec la stratégie de vérification de la connexion (voir {@link #setVerification(Verification)}).
+     * Le listener peut annuler le transfert en cours de route : le fichier distant d'origine est alors conservé.
+     *
+     * @param datas Les données à téléverser sous forme de tableau d'octets.
+     * @param path  Le chemin de destination sur l'hôte distant.
+     * @param listener Le listener informé de la progression du transfert (peut être null).
+     * @return True si le téléversement est réussi, sinon false (notamment en cas d'annulation).
+     */
+    public boolean upload(byte[] datas, String path, TransferListener listener) {
+        return upload(datas, path, this.verification, listener);
+    }
+
+    /**
+     * Téléverse un tableau d'octets vers l'hôte distant à l'emplacement spécifié.
+     * Si une connexion est établie et que les données sont valides, le téléversement est effectué.
+     * Si le téléversement réussit, il est vérifié avec la stratégie spécifiée.
+     * En cas d'échec, les données originales sont restaurées.
+     * Le fichier est écrit selon le mode de téléversement de la connexion (voir {@link #setUploadMode(UploadMode)}).
+     * Si le fichier distant est déjà identique aux données, rien n'est transféré et le téléversement est considéré comme réussi (voir {@link #setSkipUnchanged(boolean)}).
+     *
+     * @param datas Les données à téléverser sous forme de tableau d'octets.
+     * @param path  Le chemin de destination sur l'hôte distant.
+     * @param verification La stratégie utilisée pour vérifier le téléversement.
+     * @return True si le téléversement est réussi, sinon false.
+     */
+    public boolean upload(byte[] datas, String path, Verification verification) {
+        return upload(datas, path, verification, null);
+    }
+
+    /**
+     * Téléverse un tableau d'octets vers l'hôte distant à l'emplacement spécifié, en informant le listener de la progression du transfert.
+     * Si le téléversement réussit, il est vérifié avec la stratégie spécifiée.
+     * En cas d'échec ou d'annulation par le listener, les données originales sont restaurées.
+     * Le fichier est écrit selon le mode de téléversement de la connexion (voir {@link #setUploadMode(UploadMode)}).
+     * Si le fichier distant est déjà identique aux données, rien n'est transféré et le téléversement est considéré comme réussi (voir {@link #setSkipUnchanged(boolean)}).
+     *
+     * @param datas Les données à téléverser sous forme de tableau d'octets.
+     * @param path  Le chemin de destination sur l'hôte distant.
+     * @param verification La stratégie utilisée pour vérifier le téléversement.
+     * @param listener Le listener informé de la progression du transfert (peut être null).
+     * @return True si le téléversement est réussi, sinon false.
+     */
+    public boolean upload(byte[] datas, String path, Verification verification, TransferListener listener) {
         if (isConnected() && datas != null && datas.length > 0) {
-            String oldPath = path + ".old";
-            try {
-                this.sftp.rename(path, oldPath);
-                this.sftp.put(new java.io.ByteArrayInputStream(datas), path);
-                byte[] newDatas = download(path);
-                if (newDatas == null || datas.length != newDatas.length) {
-                    this.sftp.rm(path);
-                    this.sftp.rename(oldPath, path);
-                    return false;
-                } else {
-                    for (int i = 0; i < datas.length; i++) {
-                        if (datas[i] != newDatas[i]) {
-                            this.sftp.rm(path);
-                            this.sftp.rename(oldPath, path);
-                            return false;
-                        }
-                    }
-                    this.sftp.rm(oldPath);
-                    return true;
-                }
-            } catch (SftpException ex) {
-                return false;
-            }
+            if (this.skipUnchanged && isIdentical(datas, path))
+                return true;
+            ProgressMonitor monitor = listener == null ? null : new ProgressMonitor(path, datas.length, listener);
+            if (this.uploadMode == UploadMode.ATOMIC && isAtomicRenameSupported())
+                return uploadAtomic(datas, path, verification, monitor);
+            return uploadBackup(datas, path, verification, monitor);
         }
         return false;
     }
+
+    /**
+     * Détermine si le fichier distant est identique aux données spécifiées, sans transférer le fichier.
+     * Les tailles sont d'abord comparées (un simple stat), puis, si elles sont égales, les sommes de contrôle calculées de part et d'autre. Si aucune somme de contrôle ne peut être calculée sur l'hôte distant, le fichier est considéré comme différent.
+     *
+     * @param datas Les données locales.
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @return True si le fichier distant existe et est identique aux données, sinon false.
+     */
+    public boolean isIdentical(byte[] datas, String path) {
+        if (!isConnected() || datas == null)
+            return false;
+        try {
+            if (stat(path).getSize() != datas.length)
+                return false;
+        } catch (SftpException ex) {
+            return false;
+        }
+        return Boolean.TRUE.equals(compareDigest(datas, path));
+    }
     
     
     
-//INTERFACE
+//METHODES PRIVATES STATICS
     /**
-     * Cette interface permet à un objet d'être mis au courant des déconnexions intempestives de l'application à la tablette
-     * @author JasonPercus
-     * @version 1.0
+     * Calcule la somme de contrôle des données spécifiées.
+     *
+     * @param datas Les données dont il faut calculer la somme de contrôle.
+     * @param algorithm L'algorithme de hachage à utiliser (ex: SHA-256).
+     * @return La somme de contrôle en hexadécimal.
      */
-    public interface DisconnectionListener {
-        
-        
-        
-    //METHODE PUBLIC
-        /**
-         * Lorsque la tablette n'est plus connecté au client
-         */
-        public void disconnected();
-        
-        
-        
+    private static String digest(byte[] datas, String algorithm) {
+        try {
+            byte[] hash = java.security.MessageDigest.getInstance(algorithm).digest(datas);
+            return java.util.HexFormat.of().formatHex(hash);
+        } catch (java.security.NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Lit entièrement le fichier spécifié sur le canal SFTP donné.
+     * La taille du fichier est d'abord récupérée afin de remplir directement un tableau de la taille exacte, sans tampon intermédiaire ni recopie finale.
+     * Si le fichier change de taille pendant la lecture, le tableau est ajusté en conséquence.
+     *
+     * @param c Le canal SFTP à utiliser.
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @param monitor Le moniteur de progression du transfert (peut être null). S'il annule le transfert, les données renvoyées sont tronquées.
+     * @return Les données du fichier sous forme de tableau d'octets.
+     * @throws SftpException Si le fichier ne peut pas être lu sur l'hôte distant.
+     * @throws java.io.IOException Si une erreur survient pendant la lecture du flux.
+     */
+    private static byte[] read(ChannelSftp c, String path, SftpProgressMonitor monitor) throws SftpException, java.io.IOException {
+        long size = c.stat(path).getSize();
+        if (size < 0 || size > Integer.MAX_VALUE - 8) {
+            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream();
+            c.get(path, baos, monitor);
+            return baos.toByteArray();
+        }
+        try (java.io.InputStream is = c.get(path, monitor)) {
+            byte[] datas = new byte[(int) size];
+            int n = is.readNBytes(datas, 0, datas.length);
+            if (n < datas.length)
+                return java.util.Arrays.copyOf(datas, n);
+            int next = is.read();
+            if (next < 0)
+                return datas;
+            java.io.ByteArrayOutputStream baos = new java.io.ByteArrayOutputStream(datas.length * 2);
+            baos.write(datas);
+            baos.write(next);
+            is.transferTo(baos);
+            return baos.toByteArray();
+        }
     }
     
     
     
-//CLASS PRIVATE
+//METHODES PRIVATES
     /**
-     * Cette classe représente un thread qui joue le rôle de monitor et qui vérifie continuellement si la connexion à la tablette est active ou pas
-     * @author JasonPercus
-     * @version 1.0
+     * Ouvre une session SSH et son canal SFTP principal avec les identifiants et la configuration conservés.
+     *
+     * @return True si la session est ouverte, sinon false.
      */
-    private class ConnectionMonitor extends Thread {
+    private boolean openSession() {
+        Session s = null;
+        try {
+            s = this.jsch.getSession(this.username, this.remoteHost, this.port);
+            s.setPassword(this.password);
+            s.setConfig(this.config);
+            s.setServerAliveInterval(KEEP_ALIVE_INTERVAL);
+            s.setServerAliveCountMax(KEEP_ALIVE_COUNT_MAX);
+            try (Timing timing = new Timing(Operation.HANDSHAKE, this.remoteHost)) {
+                s.connect(this.timeout);
+                timing.succeeded();
+            }
+            
+            Channel c = openChannel(s, "sftp");
+            
+            this.session = s;
+            this.channel = c;
+            this.sftp    = (ChannelSftp) c;
+            return true;
+        } catch (JSchException ex) {
+            if (s != null)
+                s.disconnect();
+            return false;
+        }
+    }
 
-        
-        
-    //CONSTRUCTOR
-        /**
-         * Crée un objet ConnectionMonitor
-         */
-        public ConnectionMonitor() {
-            super("Connection SFTP Monitor");
-            super.setDaemon(true);
-            super.setPriority(MIN_PRIORITY);
+    /**
+     * Tente de rétablir la session après une déconnexion intempestive, en espaçant les tentatives de plus en plus (backoff exponentiel).
+     * Les tentatives s'arrêtent dès que l'utilisateur se déconnecte manuellement.
+     *
+     * @return True si la session a été rétablie, sinon false.
+     * @throws InterruptedException Si le thread est interrompu pendant l'attente entre deux tentatives.
+     */
+    private boolean reconnect() throws InterruptedException {
+        if (this.listener != null)
+            this.listener.reconnecting();
+        long delay = RECONNECT_INITIAL_DELAY;
+        for (int i = 0; i < RECONNECT_MAX_ATTEMPTS && this.who == 0; i++) {
+            Thread.sleep(delay);
+            if (this.who == 0 && openSession()) {
+                if (this.who != 0 || Thread.currentThread().isInterrupted()) {
+                    this.session.disconnect();
+                    return false;
+                }
+                this.connected = true;
+                this.monitor   = new ConnectionMonitor();
+                this.monitor.start();
+                if (this.listener != null)
+                    this.listener.reconnected();
+                return true;
+            }
+            delay = Math.min(delay * 2, RECONNECT_MAX_DELAY);
         }
-        
-        
-        
-    //METHODE PUBLIC
-        /**
-         * Méthode qui vérifie en permanence si oui ou non la tablette est connecté au programme
-         */
-        @Override
-        @SuppressWarnings("SleepWhileInLoop")
-        public void run() {
+        return false;
+    }
+
+    /**
+     * Arrête le moniteur de la session précédente (ainsi que celui qu'il a pu lancer après une reconnexion) et attend sa fin, afin qu'il ne puisse plus remplacer la session, ni avertir le listener, une fois qu'une nouvelle session est ouverte.
+     * Le moniteur qui appelle cette méthode (depuis le listener) n'est pas arrêté.
+     */
+    private void stopMonitor() {
+        ConnectionMonitor m;
+        while ((m = this.monitor) != null && m != Thread.currentThread()) {
+            m.interrupt();
             try {
-                while (Connection.this.session.isConnected()) {
-                    Thread.sleep(1000);
-                }
-                if(Connection.this.who == 0){
-                    Connection.this.sftp      = null;
-                    Connection.this.channel   = null;
-                    Connection.this.session   = null;
+                m.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (this.monitor == m)
+                this.monitor = null;
+        }
+    }
+
+    /**
+     * Réveille le moniteur si la session a été fermée, afin qu'une déconnexion révélée par l'échec d'une opération (canal SFTP ou d'exécution) soit traitée sans attendre sa prochaine vérification.
+     */
+    private void checkSession() {
+        Session s = this.session;
+        ConnectionMonitor m = this.monitor;
+        if (s != null && m != null && !s.isConnected())
+            java.util.concurrent.locks.LockSupport.unpark(m);
+    }
+
+    /**
+     * Détermine si l'hôte distant permet de remplacer un fichier existant de manière atomique (extension posix-rename@openssh.com).
+     *
+     * @return True si le renommage atomique est supporté, sinon false.
+     */
+    private boolean isAtomicRenameSupported() {
+        return "1".equals(this.sftp.getExtension("posix-rename@openssh.com"));
+    }
+
+    /**
+     * Téléverse un tableau d'octets dans un fichier temporaire du même répertoire, le vérifie, puis le renomme de manière atomique par-dessus le fichier de destination.
+     * Le fichier de destination n'est donc jamais partiellement écrit, et un échec ne coûte que la suppression du fichier temporaire.
+     *
+     * @param datas Les données à téléverser sous forme de tableau d'octets.
+     * @param path Le chemin de destination sur l'hôte distant.
+     * @param verification La stratégie utilisée pour vérifier le téléversement.
+     * @param monitor Le moniteur de progression du transfert (peut être null).
+     * @return True si le téléversement est réussi, sinon false.
+     */
+    private boolean uploadAtomic(byte[] datas, String path, Verification verification, ProgressMonitor monitor) {
+        int index = path.lastIndexOf('/');
+        String tmpPath = path.substring(0, index + 1) + "." + path.substring(index + 1) + ".tmp";
+        try {
+            put(datas, tmpPath, monitor);
+            if ((monitor == null || !monitor.isCancelled()) && verify(datas, tmpPath, verification)) {
+                rename(tmpPath, path);
+                return true;
+            } else {
+                rm(tmpPath);
+                return false;
+            }
+        } catch (SftpException ex) {
+            try {
+                rm(tmpPath);
+            } catch (SftpException ex1) {}
+            return false;
+        }
+    }
+
+    /**
+     * Renomme le fichier de destination en .old, téléverse le tableau d'octets à sa place et le vérifie.
+     * Si l'écriture ou la vérification échoue (espace disque insuffisant, connexion perdue, annulation...), le fichier partiellement écrit est supprimé et le fichier .old est renommé à sa place, de sorte que l'hôte distant n'est jamais laissé sans son fichier d'origine. Sinon, le fichier .old est supprimé.
+     *
+     * @param datas Les données à téléverser sous forme de tableau d'octets.
+     * @param path Le chemin de destination sur l'hôte distant.
+     * @param verification La stratégie utilisée pour vérifier le téléversement.
+     * @param monitor Le moniteur de progression du transfert (peut être null).
+     * @return True si le téléversement est réussi, sinon false.
+     */
+    private boolean uploadBackup(byte[] datas, String path, Verification verification, ProgressMonitor monitor) {
+        String oldPath = path + ".old";
+        try {
+            rename(path, oldPath);
+        } catch (SftpException ex) {
+            return false;
+        }
+        boolean success = false;
+        try {
+            put(datas, path, monitor);
+            success = (monitor == null || !monitor.isCancelled()) && verify(datas, path, verification);
+        } catch (SftpException ex) {
+            success = false;
+        } finally {
+            if (success) {
+                try {
+                    rm(oldPath);
+                } catch (SftpException ex) {}
+            } else {
+                try {
+                    rm(path);
+                } catch (SftpException ex) {}
+                try {
+                    rename(oldPath, path);
+                } catch (SftpException ex) {}
+            }
+        }
+        return success;
+    }
+
+    /**
+     * Vérifie que le fichier distant correspond exactement aux données spécifiées.
+     * Si la vérification par somme de contrôle ne peut pas être exécutée sur l'hôte distant, la vérification se replie sur le téléchargement et la comparaison des données.
+     *
+     * @param datas Les données attendues.
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @param verification La stratégie de vérification à utiliser.
+     * @return True si le fichier distant correspond aux données, sinon false.
+     * @throws SftpException Si le fichier distant ne peut pas être consulté.
+     */
+    private boolean verify(byte[] datas, String path, Verification verification) throws SftpException {
+        try (Timing timing = new Timing(Operation.VERIFY, path)) {
+            Boolean identical = null;
+            if (verification == Verification.SIZE)
+                identical = stat(path).getSize() == datas.length;
+            else if (verification == Verification.CHECKSUM)
+                identical = compareDigest(datas, path);
+            if (identical == null) {
+                byte[] newDatas = download(path);
+                identical = newDatas != null && java.util.Arrays.equals(datas, newDatas);
+            }
+            if (identical)
+                timing.succeeded();
+            return identical;
+        }
+    }
+
+    /**
+     * Compare la somme de contrôle des données spécifiées avec celle du fichier distant, calculée directement sur l'hôte distant (SHA-256, ou MD5 à défaut).
+     *
+     * @param datas Les données locales.
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @return True si les sommes de contrôle sont égales, false si elles diffèrent, ou null si aucune somme de contrôle n'a pu être calculée sur l'hôte distant.
+     */
+    private Boolean compareDigest(byte[] datas, String path) {
+        for (String[] algorithm : new String[][]{{"SHA-256", "sha256sum"}, {"MD5", "md5sum"}}) {
+            String remote = remoteDigest(algorithm[1], path);
+            if (remote != null)
+                return remote.equalsIgnoreCase(digest(datas, algorithm[0]));
+        }
+        return null;
+    }
+
+    /**
+     * Calcule la somme de contrôle du fichier spécifié directement sur l'hôte distant, via un canal d'exécution ouvert sur la session en cours.
+     *
+     * @param command La commande de somme de contrôle à exécuter sur l'hôte distant (ex: sha256sum).
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @return La somme de contrôle en hexadécimal, ou null si elle n'a pas pu être calculée.
+     */
+    private String remoteDigest(String command, String path) {
+        String output = exec(command + " -- '" + path.replace("'", "'\\''") + "'");
+        if (output == null)
+            return null;
+        String[] tokens = output.trim().split("\\s+");
+        if (tokens.length == 0 || !tokens[0].matches("[0-9a-fA-F]{32,}"))
+            return null;
+        return tokens[0];
+    }
+
+    /**
+     * Exécute une commande sur l'hôte distant via un canal d'exécution ouvert sur la session en cours.
+     *
+     * @param command La commande à exécuter.
+     * @return La sortie standard de la commande, ou null si la commande a échoué.
+     */
+    private String exec(String command) {
+        Session s = this.session;
+        if (!isConnected() || s == null)
+            return null;
+        ChannelExec c = null;
+        try (Timing timing = new Timing(Operation.EXEC, command)) {
+            c = (ChannelExec) s.openChannel("exec");
+            c.setCommand(command);
+            c.setInputStream(null);
+            java.io.InputStream is = c.getInputStream();
+            try (Timing open = new Timing(Operation.CHANNEL_OPEN, "exec")) {
+                c.connect();
+                open.succeeded();
+            }
+            byte[] output = is.readAllBytes();
+            //La sortie est terminée : le code de retour arrive avec la fermeture du canal, que JSch ne signale pas
+            long deadline = System.nanoTime() + EXEC_EXIT_TIMEOUT * 1_000_000L;
+            while (c.getExitStatus() == -1 && !c.isClosed()) {
+                if (System.nanoTime() - deadline >= 0)
+                    return null;
+                Thread.sleep(1);
+            }
+            if (c.getExitStatus() != 0)
+                return null;
+            timing.succeeded();
+            return new String(output, java.nio.charset.StandardCharsets.US_ASCII);
+        } catch (JSchException | java.io.IOException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (c != null)
+                c.disconnect();
+        }
+    }
+
+    /**
+     * Télécharge le fichier spécifié sur un canal SFTP dédié, ouvert sur la session en cours puis refermé une fois le fichier récupéré.
+     * Cela permet à plusieurs téléchargements de s'exécuter en parallèle sans partager le canal principal.
+     *
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @return Les données du fichier téléchargé sous forme de tableau d'octets, ou null en cas d'échec.
+     */
+    private byte[] downloadOnNewChannel(String path) {
+        Session s = this.session;
+        if (!isConnected() || s == null)
+            return null;
+        ChannelSftp c = null;
+        try {
+            c = (ChannelSftp) openChannel(s, "sftp");
+            try (Timing timing = new Timing(Operation.GET, path)) {
+                byte[] datas = read(c, path, null);
+                timing.succeeded();
+                return datas;
+            }
+        } catch (JSchException | SftpException | java.io.IOException ex) {
+            return null;
+        } finally {
+            if (c != null)
+                c.disconnect();
+        }
+    }
+
+    /**
+     * Ouvre et connecte un nouveau canal sur la session spécifiée, en mesurant la durée de l'ouverture.
+     *
+     * @param s La session SSH.
+     * @param type Le type de canal (ex: sftp).
+     * @return Le canal connecté.
+     * @throws JSchException Si le canal ne peut pas être ouvert.
+     */
+    private Channel openChannel(Session s, String type) throws JSchException {
+        try (Timing timing = new Timing(Operation.CHANNEL_OPEN, type)) {
+            Channel c = s.openChannel(type);
+            c.connect();
+            timing.succeeded();
+            return c;
+        }
+    }
+
+    /**
+     * Récupère les attributs d'un fichier distant sur le canal SFTP principal, en mesurant la durée de l'opération.
+     *
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @return Les attributs du fichier.
+     * @throws SftpException Si le fichier ne peut pas être consulté.
+     */
+    private SftpATTRS stat(String path) throws SftpException {
+        try (Timing timing = new Timing(Operation.STAT, path)) {
+            SftpATTRS attrs = this.sftp.stat(path);
+            timing.succeeded();
+            return attrs;
+        }
+    }
+
+    /**
+     * Écrit des données dans un fichier distant sur le canal SFTP principal, en mesurant la durée de l'opération.
+     *
+     * @param datas Les données à écrire.
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @param monitor Le moniteur de progression du transfert (peut être null).
+     * @throws SftpException Si le fichier ne peut pas être écrit.
+     */
+    private void put(byte[] datas, String path, ProgressMonitor monitor) throws SftpException {
+        try (Timing timing = new Timing(Operation.PUT, path)) {
+            this.sftp.put(new java.io.ByteArrayInputStream(datas), path, monitor);
+            if (monitor == null || !monitor.isCancelled())
+                timing.succeeded();
+        }
+    }
+
+    /**
+     * Renomme un fichier distant sur le canal SFTP principal, en mesurant la durée de l'opération.
+     *
+     * @param oldPath Le chemin actuel du fichier sur l'hôte distant.
+     * @param newPath Le nouveau chemin du fichier sur l'hôte distant.
+     * @throws SftpException Si le fichier ne peut pas être renommé.
+     */
+    private void rename(String oldPath, String newPath) throws SftpException {
+        try (Timing timing = new Timing(Operation.RENAME, oldPath + " -> " + newPath)) {
+            this.sftp.rename(oldPath, newPath);
+            timing.succeeded();
+        }
+    }
+
+    /**
+     * Supprime un fichier distant sur le canal SFTP principal, en mesurant la durée de l'opération.
+     *
+     * @param path Le chemin du fichier sur l'hôte distant.
+     * @throws SftpException Si le fichier ne peut pas être supprimé.
+     */
+    private void rm(String path) throws SftpException {
+        try (Timing timing = new Timing(Operation.RM, path)) {
+            this.sftp.rm(path);
+            timing.succeeded();
+        }
+    }
+    
+    
+    
+//ENUMS
+    /**
+     * Cette énumération liste les stratégies possibles pour vérifier qu'un fichier a bien été téléversé
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public enum Verification {
+        
+        /**
+         * Le fichier est à nouveau téléchargé puis comparé octet par octet (le plus sûr, mais double le coût du transfert)
+         */
+        DOWNLOAD,
+        
+        /**
+         * Une somme de contrôle (sha256sum, sinon md5sum) est calculée sur l'hôte distant et comparée à celle des données locales. Si elle ne peut pas être calculée, la vérification se replie sur {@link #DOWNLOAD}
+         */
+        CHECKSUM,
+        
+        /**
+         * Seule la taille du fichier distant est comparée à celle des données locales (le plus rapide, mais le moins sûr)
+         */
+        SIZE;
+        
+    }
+    
+    
+    
+    /**
+     * Cette énumération liste les manières possibles d'écrire un fichier sur l'hôte distant lors d'un téléversement
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public enum UploadMode {
+        
+        /**
+         * Le fichier existant est renommé en ".old", les nouvelles données sont écrites à sa place puis vérifiées. En cas d'échec, l'ancien fichier est restauré
+         */
+        BACKUP,
+        
+        /**
+         * Les nouvelles données sont écrites dans un fichier temporaire du même répertoire, vérifiées, puis renommées de manière atomique par-dessus le fichier existant. Si l'hôte distant ne supporte pas le renommage atomique, le mode {@link #BACKUP} est utilisé
+         */
+        ATOMIC;
+        
+    }
+    
+    
+    
+    /**
+     * Cette énumération liste les opérations effectuées sur l'hôte distant dont la durée est mesurée (voir {@link OperationListener})
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public enum Operation {
+        
+        /**
+         * L'établissement de la session SSH (connexion TCP, négociation des clés et authentification)
+         */
+        HANDSHAKE,
+        
+        /**
+         * L'ouverture d'un canal (sftp ou exec) sur la session SSH
+         */
+        CHANNEL_OPEN,
+        
+        /**
+         * La consultation des attributs d'un fichier distant (taille...)
+         */
+        STAT,
+        
+        /**
+         * Le téléchargement d'un fichier distant
+         */
+        GET,
+        
+        /**
+         * L'écriture d'un fichier distant
+         */
+        PUT,
+        
+        /**
+         * Le renommage d'un fichier distant
+         */
+        RENAME,
+        
+        /**
+         * La suppression d'un fichier distant
+         */
+        RM,
+        
+        /**
+         * L'exécution d'une commande sur l'hôte distant (calcul d'une somme de contrôle...)
+         */
+        EXEC,
+        
+        /**
+         * La vérification d'un fichier téléversé, quelle que soit la stratégie utilisée (voir {@link Verification})
+         */
+        VERIFY;
+        
+    }
+    
+    
+    
+//INTERFACES
+    /**
+     * Cette interface permet à un objet d'être mis au courant des déconnexions intempestives de l'application à la tablette
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public interface DisconnectionListener {
+        
+        
+        
+    //METHODE PUBLIC
+        /**
+         * Lorsque la tablette n'est plus connecté au client
+         */
+        public void disconnected();
+        
+        /**
+         * Lorsque la connexion a été perdue et que des tentatives de reconnexion commencent
+         */
+        public default void reconnecting() {
+            
+        }
+        
+        /**
+         * Lorsque la connexion a été rétablie après une déconnexion intempestive
+         */
+        public default void reconnected() {
+            
+        }
+        
+        
+        
+    }
+    
+    /**
+     * Cette interface permet à un objet d'être mis au courant de l'arrivée de chaque fichier lors d'un téléchargement groupé
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public interface DownloadListener {
+        
+        
+        
+    //METHODE PUBLIC
+        /**
+         * Lorsque le téléchargement d'un fichier est terminé
+         * @param path Le chemin du fichier sur l'hôte distant
+         * @param datas Les données du fichier téléchargé, ou null si le téléchargement a échoué
+         */
+        public void downloaded(String path, byte[] datas);
+        
+        
+        
+    }
+    
+    /**
+     * Cette interface permet à un objet de suivre la progression d'un transfert de fichier et de l'annuler en cours de route
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public interface TransferListener {
+        
+        
+        
+    //METHODES PUBLICS
+        /**
+         * Lorsqu'un nouveau bloc de données a été transféré. Cette méthode est appelée depuis le thread qui effectue le transfert
+         * @param progress L'état d'avancement du transfert
+         * @return True pour poursuivre le transfert, false pour l'annuler
+         */
+        public boolean progress(TransferProgress progress);
+        
+        /**
+         * Lorsque le transfert est terminé (avec succès, en échec ou annulé)
+         * @param progress L'état final du transfert (le débit moyen permet de repérer les tablettes mal connectées)
+         * @param completed True si toutes les données ont été transférées, sinon false
+         */
+        public default void finished(TransferProgress progress, boolean completed) {
+            
+        }
+        
+        
+        
+    }
+    
+    /**
+     * Cette interface permet à un objet d'être mis au courant de la durée de chaque opération effectuée sur l'hôte distant, afin de savoir où le temps est passé sur chaque tablette
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public interface OperationListener {
+        
+        
+        
+    //METHODE PUBLIC
+        /**
+         * Lorsqu'une opération sur l'hôte distant est terminée (avec succès ou non). Cette méthode est appelée depuis le thread qui a effectué l'opération
+         * @param operation L'opération effectuée
+         * @param target La cible de l'opération (l'hôte distant, le type de canal, le chemin du fichier ou la commande exécutée)
+         * @param duration La durée de l'opération (en nanosecondes)
+         * @param success True si l'opération a réussi, sinon false
+         */
+        public void completed(Operation operation, String target, long duration, boolean success);
+        
+        
+        
+    }
+    
+    
+    
+//CLASS
+    /**
+     * Cette classe représente l'état d'avancement d'un transfert de fichier à un instant donné
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public static class TransferProgress {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * Le chemin du fichier transféré sur l'hôte distant
+         */
+        private final String path;
+
+        /**
+         * La taille totale du fichier (en octets), ou -1 si elle est inconnue
+         */
+        private final long size;
+
+        /**
+         * Le nombre d'octets déjà transférés
+         */
+        private final long transferred;
+
+        /**
+         * Le temps écoulé depuis le début du transfert (en nanosecondes)
+         */
+        private final long elapsed;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Construit l'état d'avancement d'un transfert.
+         *
+         * @param path Le chemin du fichier transféré sur l'hôte distant.
+         * @param size La taille totale du fichier (en octets), ou -1 si elle est inconnue.
+         * @param transferred Le nombre d'octets déjà transférés.
+         * @param elapsed Le temps écoulé depuis le début du transfert (en nanosecondes).
+         */
+        public TransferProgress(String path, long size, long transferred, long elapsed) {
+            this.path        = path;
+            this.size        = size;
+            this.transferred = transferred;
+            this.elapsed     = elapsed;
+        }
+    
+    
+    
+    //GETTERS
+        /**
+         * Renvoie le chemin du fichier transféré sur l'hôte distant.
+         *
+         * @return Le chemin du fichier.
+         */
+        public String getPath() {
+            return this.path;
+        }
+
+        /**
+         * Renvoie la taille totale du fichier.
+         *
+         * @return La taille totale du fichier (en octets), ou -1 si elle est inconnue.
+         */
+        public long getSize() {
+            return this.size;
+        }
+
+        /**
+         * Renvoie le nombre d'octets déjà transférés.
+         *
+         * @return Le nombre d'octets déjà transférés.
+         */
+        public long getTransferred() {
+            return this.transferred;
+        }
+
+        /**
+         * Renvoie le temps écoulé depuis le début du transfert.
+         *
+         * @return Le temps écoulé (en millisecondes).
+         */
+        public long getElapsed() {
+            return this.elapsed / 1_000_000;
+        }
+
+        /**
+         * Renvoie le pourcentage du fichier déjà transféré.
+         *
+         * @return Le pourcentage transféré (entre 0 et 100), ou -1 si la taille du fichier est inconnue.
+         */
+        public int getPercent() {
+            if (this.size <= 0)
+                return -1;
+            return (int) Math.min(100, this.transferred * 100 / this.size);
+        }
+
+        /**
+         * Renvoie le débit moyen du transfert depuis son début.
+         *
+         * @return Le débit moyen (en octets par seconde).
+         */
+        public double getBytesPerSecond() {
+            return this.elapsed <= 0 ? 0 : this.transferred * 1e9 / this.elapsed;
+        }
+
+        /**
+         * Renvoie une estimation du temps restant avant la fin du transfert, au débit moyen actuel.
+         *
+         * @return Le temps restant estimé (en millisecondes), ou -1 s'il ne peut pas être estimé.
+         */
+        public long getEta() {
+            double speed = getBytesPerSecond();
+            if (this.size < 0 || speed <= 0)
+                return -1;
+            return (long) (Math.max(0, this.size - this.transferred) * 1000 / speed);
+        }
+
+        /**
+         * Renvoie une représentation textuelle de l'état d'avancement.
+         *
+         * @return La représentation textuelle de l'état d'avancement.
+         */
+        @Override
+        public String toString() {
+            return String.format("%s: %d/%d bytes, %.1f KB/s", this.path, this.transferred, this.size, getBytesPerSecond() / 1024);
+        }
+    
+    
+    
+    }
+    
+    
+    
+//CLASS PRIVATE
+    /**
+     * Cette classe adapte un {@link TransferListener} au moniteur de progression de JSch. Renvoyer false depuis {@link #count(long)} interrompt le transfert en cours et libère le canal
+     * @author JasonPercus
+     * @version 1.0
+     */
+    private static class ProgressMonitor implements SftpProgressMonitor {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * Le chemin du fichier transféré (le fichier de destination final, même lors d'un téléversement dans un fichier temporaire)
+         */
+        private final String path;
+
+        /**
+         * Le listener informé de la progression
+         */
+        private final TransferListener listener;
+
+        /**
+         * La taille totale du fichier, ou {@link SftpProgressMonitor#UNKNOWN_SIZE} si elle est inconnue
+         */
+        private long size;
+
+        /**
+         * Le nombre d'octets déjà transférés
+         */
+        private long transferred;
+
+        /**
+         * L'instant du début du transfert (en nanosecondes)
+         */
+        private long start;
+
+        /**
+         * Détermine si le listener a annulé le transfert
+         */
+        private volatile boolean cancelled;
+
+        /**
+         * Détermine si la fin du transfert a déjà été signalée au listener
+         */
+        private boolean ended;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée un moniteur de progression.
+         *
+         * @param path Le chemin du fichier transféré.
+         * @param size La taille totale du fichier, ou {@link SftpProgressMonitor#UNKNOWN_SIZE} si elle est fournie par JSch au début du transfert.
+         * @param listener Le listener informé de la progression.
+         */
+        public ProgressMonitor(String path, long size, TransferListener listener) {
+            this.path     = path;
+            this.size     = size;
+            this.listener = listener;
+            this.start    = System.nanoTime();
+        }
+    
+    
+    
+    //METHODES PUBLICS
+        /**
+         * Détermine si le listener a annulé le transfert.
+         *
+         * @return True si le transfert a été annulé, sinon false.
+         */
+        public boolean isCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * Lorsque le transfert commence.
+         *
+         * @param op Le sens du transfert ({@link SftpProgressMonitor#PUT} ou {@link SftpProgressMonitor#GET}).
+         * @param src La source du transfert.
+         * @param dest La destination du transfert.
+         * @param max La taille du fichier, si JSch la connaît.
+         */
+        @Override
+        public void init(int op, String src, String dest, long max) {
+            if (this.size == UNKNOWN_SIZE)
+                this.size = max;
+            this.transferred = 0;
+            this.start       = System.nanoTime();
+        }
+
+        /**
+         * Lorsqu'un bloc de données a été transféré.
+         *
+         * @param count Le nombre d'octets du bloc.
+         * @return True pour poursuivre le transfert, false pour l'interrompre.
+         */
+        @Override
+        public boolean count(long count) {
+            this.transferred += count;
+            if (!this.cancelled && !this.listener.progress(snapshot()))
+                this.cancelled = true;
+            return !this.cancelled;
+        }
+
+        /**
+         * Lorsque le transfert est terminé ou interrompu.
+         */
+        @Override
+        public void end() {
+            if (this.ended)
+                return;
+            this.ended = true;
+            this.listener.finished(snapshot(), !this.cancelled && (this.size < 0 || this.transferred >= this.size));
+        }
+    
+    
+    
+    //METHODE PRIVATE
+        /**
+         * Renvoie l'état d'avancement actuel du transfert.
+         *
+         * @return L'état d'avancement du transfert.
+         */
+        private TransferProgress snapshot() {
+            return new TransferProgress(this.path, this.size, this.transferred, System.nanoTime() - this.start);
+        }
+    
+    
+    
+    }
+    
+    /**
+     * Cette classe mesure la durée d'une opération effectuée sur l'hôte distant, puis la transmet au {@link OperationListener} et à JFR (voir {@link ConnectionEvent}) lorsqu'elle est fermée
+     * @author JasonPercus
+     * @version 1.0
+     */
+    private class Timing implements AutoCloseable {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * L'opération mesurée
+         */
+        private final Operation operation;
+
+        /**
+         * La cible de l'opération
+         */
+        private final String target;
+
+        /**
+         * L'évènement JFR de l'opération
+         */
+        private final ConnectionEvent event;
+
+        /**
+         * L'instant du début de l'opération (en nanosecondes)
+         */
+        private final long start;
+
+        /**
+         * Détermine si l'opération a réussi
+         */
+        private boolean success;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Commence la mesure d'une opération.
+         *
+         * @param operation L'opération mesurée.
+         * @param target La cible de l'opération.
+         */
+        public Timing(Operation operation, String target) {
+            this.operation = operation;
+            this.target    = target;
+            this.event     = new ConnectionEvent();
+            this.event.begin();
+            this.start     = System.nanoTime();
+        }
+    
+    
+    
+    //METHODES PUBLICS
+        /**
+         * Signale que l'opération a réussi. Une opération fermée sans avoir appelé cette méthode est considérée comme un échec.
+         */
+        public void succeeded() {
+            this.success = true;
+        }
+
+        /**
+         * Termine la mesure de l'opération et la transmet.
+         */
+        @Override
+        public void close() {
+            long duration = System.nanoTime() - this.start;
+            this.event.end();
+            if (this.event.shouldCommit()) {
+                this.event.host      = Connection.this.remoteHost;
+                this.event.operation = this.operation.name();
+                this.event.target    = this.target;
+                this.event.success   = this.success;
+                this.event.commit();
+            }
+            OperationListener l = Connection.this.operationListener;
+            if (l != null)
+                l.completed(this.operation, this.target, duration, this.success);
+            if (!this.success)
+                checkSession();
+        }
+    
+    
+    
+    }
+    
+    /**
+     * Cette classe représente un thread qui joue le rôle de monitor et qui attend la fermeture de la session pour réagir à une déconnexion de la tablette
+     * @author JasonPercus
+     * @version 1.0
+     */
+    private class ConnectionMonitor extends Thread {
+
+        
+        
+    //CONSTRUCTOR
+        /**
+         * Crée un objet ConnectionMonitor
+         */
+        public ConnectionMonitor() {
+            super("Connection SFTP Monitor");
+            super.setDaemon(true);
+            super.setPriority(MIN_PRIORITY);
+        }
+        
+        
+        
+    //METHODE PUBLIC
+        /**
+         * Méthode qui attend la fermeture de la session. Le moniteur est réveillé par une opération qui échoue sur une session fermée (voir {@link Connection#checkSession()}) ou par l'arrêt du moniteur (voir {@link Connection#stopMonitor()}). À défaut, l'état de la session est vérifié une fois par intervalle de keep-alive ({@link #KEEP_ALIVE_INTERVAL} millisecondes, sans aucun échange réseau) : JSch ne ferme de lui-même une session silencieusement perdue qu'après des keep-alive sans réponse, une vérification plus fréquente ne détecterait donc rien plus tôt.
+         * Si la déconnexion n'est pas du fait de l'utilisateur, une reconnexion est tentée avant d'avertir le listener. Un moniteur interrompu s'arrête sans rien modifier.
+         */
+        @Override
+        public void run() {
+            try {
+                Session s = Connection.this.session;
+                while (s.isConnected()) {
+                    java.util.concurrent.locks.LockSupport.parkNanos(this, KEEP_ALIVE_INTERVAL * 1_000_000L);
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+                }
+                if(Connection.this.who == 0){
                     Connection.this.connected = false;
-                    if(Connection.this.monitor != null)
+                    if(reconnect() || isInterrupted())
+                        return;
+                    Connection.this.sftp      = null;
+                    Connection.this.channel   = null;
+                    Connection.this.session   = null;
+                    if(Connection.this.monitor != null && Connection.this.who == 0 && Connection.this.listener != null)
                         Connection.this.listener.disconnected();
                 }
-                Connection.this.who = 0;
             } catch (InterruptedException ex) {
                 Thread.currentThread().interrupt();
             }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+/**
+ * La classe ConnectionEvent est l'évènement JFR (Java Flight Recorder) enregistré pour chaque opération effectuée par une {@link Connection} sur une tablette.
+ * L'évènement n'a aucun coût tant qu'il n'est pas activé. Pour l'enregistrer : java -XX:StartFlightRecording:filename=remarkable.jfr ... puis jfr print --events com.jasonpercus.remarkable.ConnectionOperation remarkable.jfr
+ * @author JasonPercus
+ * @version 1.0
+ */
+@jdk.jfr.Name("com.jasonpercus.remarkable.ConnectionOperation")
+@jdk.jfr.Label("Tablet Operation")
+@jdk.jfr.Description("SSH/SFTP operation performed on a reMarkable tablet")
+@jdk.jfr.Category({"ScreenRemarkable2", "Connection"})
+@jdk.jfr.StackTrace(false)
+class ConnectionEvent extends jdk.jfr.Event {
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * L'adresse de la tablette
+     */
+    @jdk.jfr.Label("Host")
+    String host;
+
+    /**
+     * L'opération effectuée (voir {@link Connection.Operation})
+     */
+    @jdk.jfr.Label("Operation")
+    String operation;
+
+    /**
+     * La cible de l'opération (chemin du fichier, type de canal ou commande)
+     */
+    @jdk.jfr.Label("Target")
+    String target;
+
+    /**
+     * Détermine si l'opération a réussi
+     */
+    @jdk.jfr.Label("Success")
+    boolean success;
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,317 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import com.jasonpercus.util.KeyedQueueThread;
+
+
+
+/**
+ * La classe Fleet permet de gérer un parc de tablettes Remarkable 2.
+ * Elle conserve un pool de {@link Connection} indexé par l'adresse IP de chaque tablette, suit l'état de santé de chacune d'elles et permet de pousser un même jeu d'images sur toutes les tablettes en parallèle.
+ * Le nombre de tablettes traitées simultanément est borné par le parallélisme choisi à la création du parc. Les tâches d'une même tablette sont exécutées les unes après les autres, car sa connexion ne supporte pas les accès concurrents.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Fleet {
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * Les identifiants de connexion de chaque tablette, indexés par adresse IP.
+     */
+    private final java.util.Map<String, String[]> credentials;
+
+    /**
+     * Les connexions ouvertes vers les tablettes, indexées par adresse IP.
+     */
+    private final java.util.Map<String, Connection> connections;
+
+    /**
+     * Les verrous qui sérialisent l'établissement des connexions, un par adresse IP.
+     */
+    private final java.util.Map<String, Object> locks;
+
+    /**
+     * L'état de santé de chaque tablette, indexé par adresse IP.
+     */
+    private final java.util.Map<String, Health> healths;
+
+    /**
+     * Le débit moyen (en octets par seconde) du dernier fichier transféré vers chaque tablette, indexé par adresse IP.
+     */
+    private final java.util.Map<String, Double> throughputs;
+
+    /**
+     * Le nombre maximum de tablettes traitées simultanément.
+     */
+    private final int parallelism;
+
+    /**
+     * L'exécuteur qui traite les tablettes en parallèle (une file d'attente par adresse IP).
+     */
+    private final KeyedQueueThread<String> executor;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Construit un nouveau parc de tablettes vide.
+     *
+     * @param parallelism Le nombre maximum de tablettes traitées simultanément (au moins 1).
+     */
+    public Fleet(int parallelism) {
+        this.credentials = new java.util.concurrent.ConcurrentHashMap<>();
+        this.connections = new java.util.concurrent.ConcurrentHashMap<>();
+        this.locks       = new java.util.concurrent.ConcurrentHashMap<>();
+        this.healths     = new java.util.concurrent.ConcurrentHashMap<>();
+        this.throughputs = new java.util.concurrent.ConcurrentHashMap<>();
+        this.parallelism = Math.max(1, parallelism);
+        this.executor    = new KeyedQueueThread<>("Fleet", this.parallelism);
+    }
+    
+    
+    
+//GETTERS
+    /**
+     * Renvoie le nombre maximum de tablettes traitées simultanément.
+     *
+     * @return Le parallélisme du parc.
+     */
+    public int getParallelism() {
+        return this.parallelism;
+    }
+
+    /**
+     * Renvoie les adresses IP des tablettes du parc.
+     *
+     * @return Les adresses IP des tablettes du parc, triées.
+     */
+    public java.util.SortedSet<String> getHosts() {
+        return new java.util.TreeSet<>(this.credentials.keySet());
+    }
+
+    /**
+     * Renvoie l'état de santé d'une tablette du parc.
+     *
+     * @param host L'adresse IP de la tablette.
+     * @return L'état de santé de la tablette, ou null si la tablette ne fait pas partie du parc.
+     */
+    public Health getHealth(String host) {
+        return this.healths.get(host);
+    }
+
+    /**
+     * Renvoie l'état de santé de toutes les tablettes du parc.
+     *
+     * @return L'état de santé de chaque tablette, indexé par adresse IP.
+     */
+    public java.util.SortedMap<String, Health> getHealths() {
+        return new java.util.TreeMap<>(this.healths);
+    }
+
+    /**
+     * Renvoie le débit moyen du dernier fichier entièrement transféré vers une tablette. Un débit faible signale une tablette mal connectée.
+     *
+     * @param host L'adresse IP de la tablette.
+     * @return Le débit moyen (en octets par seconde), ou -1 si aucun fichier n'a encore été transféré vers la tablette.
+     */
+    public double getThroughput(String host) {
+        return this.throughputs.getOrDefault(host, -1.0);
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Ajoute une tablette au parc (ou met à jour ses identifiants). Aucune connexion n'est établie tant que la tablette n'est pas sollicitée.
+     *
+     * @param host L'adresse IP de la tablette.
+     * @param username Le nom d'utilisateur pour l'authentification.
+     * @param password Le mot de passe pour l'authentification.
+     */
+    public void add(String host, String username, String password) {
+        this.credentials.put(host, new String[]{username, password});
+        this.healths.putIfAbsent(host, Health.UNKNOWN);
+    }
+
+    /**
+     * Retire une tablette du parc et ferme sa connexion si elle est ouverte.
+     *
+     * @param host L'adresse IP de la tablette.
+     */
+    public void remove(String host) {
+        this.credentials.remove(host);
+        this.healths.remove(host);
+        this.throughputs.remove(host);
+        Connection c = this.connections.remove(host);
+        if (c != null)
+            c.disconnect();
+    }
+
+    /**
+     * Renvoie la connexion vers une tablette du parc, en l'établissant si nécessaire.
+     * Une connexion qui n'est plus établie (perdue, ou en cours de reconnexion) est fermée avant d'être remplacée, afin que sa session, ses keep-alive et ses tentatives de reconnexion ne survivent pas à côté de la nouvelle connexion.
+     * Le remplacement est atomique : deux appels simultanés pour une même tablette ne peuvent pas ouvrir deux connexions. La connexion est établie sous un verrou propre à la tablette, et non dans la map des connexions, de sorte qu'une tablette injoignable ne bloque pas les autres.
+     *
+     * @param host L'adresse IP de la tablette.
+     * @return La connexion établie vers la tablette, ou null si la tablette ne fait pas partie du parc ou qu'elle est injoignable.
+     */
+    public Connection get(String host) {
+        String[] credential = this.credentials.get(host);
+        if (credential == null)
+            return null;
+        Connection c = this.connections.get(host);
+        if (c != null && c.isConnected())
+            return c;
+        synchronized (this.locks.computeIfAbsent(host, (String h) -> new Object())) {
+            Connection old = this.connections.get(host);
+            if (old != null && old.isConnected())
+                return old;
+            if (old != null) {
+                this.connections.remove(host, old);
+                old.disconnect();
+            }
+            this.healths.put(host, Health.CONNECTING);
+            Connection[] created = new Connection[1];
+            created[0] = new Connection(credential[0], credential[1], host, () -> {
+                if (this.connections.remove(host, created[0]))
+                    this.healths.replace(host, Health.DISCONNECTED);
+            });
+            if (!created[0].connect()) {
+                this.healths.put(host, Health.UNREACHABLE);
+                return null;
+            }
+            this.connections.put(host, created[0]);
+            //La tablette a pu être retirée du parc pendant l'établissement de la connexion
+            if (!this.credentials.containsKey(host)) {
+                this.connections.remove(host, created[0]);
+                this.healths.remove(host);
+                created[0].disconnect();
+                return null;
+            }
+            this.healths.put(host, Health.CONNECTED);
+            return created[0];
+        }
+    }
+
+    /**
+     * Pousse un même jeu de fichiers sur toutes les tablettes du parc, en traitant au plus {@link #getParallelism()} tablettes simultanément.
+     * Les fichiers d'une même tablette sont téléversés les uns après les autres sur sa connexion. Une tablette dont un fichier n'a pas pu être téléversé passe à l'état {@link Health#FAILED}.
+     * Le débit de chaque transfert est mesuré (voir {@link #getThroughput(String)}).
+     *
+     * @param files Les données de chaque fichier à téléverser, indexées par leur chemin de destination sur la tablette.
+     * @return Le résultat de chaque tablette (true si tous ses fichiers ont été téléversés), indexé par adresse IP.
+     */
+    public java.util.SortedMap<String, Boolean> push(java.util.Map<String, byte[]> files) {
+        java.util.SortedMap<String, Boolean> results = new java.util.TreeMap<>();
+        java.util.List<String> hosts = new java.util.ArrayList<>(getHosts());
+        java.util.List<java.util.concurrent.CompletableFuture<Boolean>> futures = new java.util.ArrayList<>();
+        for (String host : hosts) {
+            futures.add(this.executor.execute(host, () -> {
+                Connection c = get(host);
+                if (c == null)
+                    return false;
+                Connection.TransferListener meter = new Connection.TransferListener() {
+                    @Override
+                    public boolean progress(Connection.TransferProgress progress) {
+                        return true;
+                    }
+
+                    @Override
+                    public void finished(Connection.TransferProgress progress, boolean completed) {
+                        if (completed)
+                            Fleet.this.throughputs.put(host, progress.getBytesPerSecond());
+                    }
+                };
+                for (java.util.Map.Entry<String, byte[]> file : files.entrySet()) {
+                    if (!c.upload(file.getValue(), file.getKey(), meter)) {
+                        this.healths.put(host, Health.FAILED);
+                        return false;
+                    }
+                }
+                this.healths.put(host, Health.CONNECTED);
+                return true;
+            }));
+        }
+        try {
+            for (int i = 0; i < hosts.size(); i++) {
+                try {
+                    results.put(hosts.get(i), futures.get(i).get());
+                } catch (java.util.concurrent.ExecutionException ex) {
+                    this.healths.put(hosts.get(i), Health.FAILED);
+                    results.put(hosts.get(i), false);
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        return results;
+    }
+
+    /**
+     * Ferme toutes les connexions du parc et arrête l'exécuteur. Le parc ne doit plus être utilisé ensuite.
+     */
+    public void close() {
+        for (Connection c : this.connections.values())
+            c.disconnect();
+        this.connections.clear();
+        for (String host : this.healths.keySet())
+            this.healths.put(host, Health.DISCONNECTED);
+        this.executor.shutdownNow();
+    }
+    
+    
+    
+//ENUM
+    /**
+     * Cette énumération liste les états de santé possibles d'une tablette du parc
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public enum Health {
+
+        /**
+         * La tablette n'a encore jamais été sollicitée
+         */
+        UNKNOWN,
+
+        /**
+         * Une connexion vers la tablette est en cours d'établissement
+         */
+        CONNECTING,
+
+        /**
+         * La tablette est connectée et sa dernière opération a réussi
+         */
+        CONNECTED,
+
+        /**
+         * La connexion vers la tablette a été perdue ou fermée
+         */
+        DISCONNECTED,
+
+        /**
+         * La connexion vers la tablette n'a pas pu être établie
+         */
+        UNREACHABLE,
+
+        /**
+         * La tablette est connectée mais sa dernière opération a échoué
+         */
+        FAILED;
+
+    }
+
+
+
+}
\ No newline at end of file
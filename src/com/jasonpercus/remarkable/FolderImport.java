@@ -0,0 +1,291 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import com.jasonpercus.util.ImageCache;
+import com.jasonpercus.util.KeyedQueueThread;
+
+
+
+/**
+ * La classe FolderImport surveille un dossier (ex: MyScreens) dans lequel des images système sont déposées, et les importe dès qu'elles sont créées ou modifiées.
+ * Chaque fichier est associé à une image système par son nom (ex: sleeping.png pour {@link Slot#SLEEPING}, sans tenir compte de la casse) ; les autres fichiers sont ignorés.
+ * Un fichier importé est lu et son en-tête vérifié ({@link LocalImage#read(java.nio.file.Path)}), puis sa miniature est décodée et placée dans le cache des miniatures, ce qui valide l'image entière. Le listener est ensuite averti avec les données du fichier.
+ * L'import est incrémental : un fichier dont le contenu n'a pas changé depuis son dernier import (même empreinte) n'est ni décodé, ni signalé au listener. Les images système sont traitées en parallèle sur un pool de threads, mais les imports d'une même image système sont traités dans l'ordre.
+ * Les éditeurs d'images écrivant souvent un fichier en plusieurs fois, un fichier n'est importé qu'une fois resté inchangé pendant {@link #QUIET_PERIOD} millisecondes.
+ * Le décodage passe par {@link Thumbnails} et non par {@link Miniature} : la surveillance ne charge aucune classe Swing.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class FolderImport implements AutoCloseable {
+    
+    
+    
+//CONSTANTE
+    /**
+     * Le délai (en millisecondes) pendant lequel un fichier doit rester inchangé avant d'être importé
+     */
+    public final static long QUIET_PERIOD = 300;
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * Le dossier surveillé
+     */
+    private final java.nio.file.Path directory;
+
+    /**
+     * L'objet averti des imports
+     */
+    private final Listener listener;
+
+    /**
+     * Le service qui surveille le dossier
+     */
+    private final java.nio.file.WatchService watcher;
+
+    /**
+     * L'exécuteur qui importe les fichiers (une file d'attente par image système)
+     */
+    private final KeyedQueueThread<Slot> executor;
+
+    /**
+     * L'empreinte du dernier fichier importé de chaque image système
+     */
+    private final java.util.Map<Slot, String> hashes;
+
+    /**
+     * La date (en nanosecondes) à partir de laquelle chaque fichier modifié peut être importé. Uniquement accédé par le thread de surveillance
+     */
+    private final java.util.Map<java.nio.file.Path, Long> pending;
+
+    /**
+     * Le thread de surveillance du dossier
+     */
+    private final Thread thread;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Crée un import de dossier. La surveillance ne commence qu'à l'appel de {@link #start()}.
+     *
+     * @param directory Le dossier à surveiller.
+     * @param parallelism Le nombre maximum de fichiers importés simultanément (au moins 1).
+     * @param listener L'objet averti des imports.
+     * @throws java.io.IOException Si le dossier ne peut pas être surveillé.
+     */
+    public FolderImport(java.nio.file.Path directory, int parallelism, Listener listener) throws java.io.IOException {
+        this.directory = directory.toAbsolutePath();
+        this.listener  = listener;
+        this.watcher   = directory.getFileSystem().newWatchService();
+        this.directory.register(this.watcher, java.nio.file.StandardWatchEventKinds.ENTRY_CREATE, java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY);
+        this.executor  = new KeyedQueueThread<>("Folder Import", Math.max(1, parallelism));
+        this.hashes    = new java.util.concurrent.ConcurrentHashMap<>();
+        this.pending   = new java.util.HashMap<>();
+        this.thread    = new Thread(this::watch, "Folder Import Watcher");
+        this.thread.setDaemon(true);
+    }
+    
+    
+    
+//GETTERS
+    /**
+     * Renvoie le dossier surveillé.
+     *
+     * @return Le dossier surveillé.
+     */
+    public java.nio.file.Path getDirectory() {
+        return this.directory;
+    }
+
+    /**
+     * Renvoie l'empreinte du dernier fichier importé d'une image système.
+     *
+     * @param slot L'image système.
+     * @return L'empreinte du fichier (voir {@link ImageCache#hash(byte[])}), ou null si aucun fichier n'a été importé pour cette image système.
+     */
+    public String getHash(Slot slot) {
+        return this.hashes.get(slot);
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Importe les fichiers déjà présents dans le dossier, puis commence à surveiller le dossier.
+     */
+    public void start() {
+        this.thread.start();
+    }
+
+    /**
+     * Arrête la surveillance du dossier. Les imports en cours sont abandonnés.
+     */
+    @Override
+    public void close() {
+        try {
+            this.watcher.close();
+        } catch (java.io.IOException ex) {}
+        this.thread.interrupt();
+        this.executor.shutdownNow();
+    }
+    
+    
+    
+//METHODES PRIVATES
+    /**
+     * Boucle du thread de surveillance : importe les fichiers présents, puis planifie l'import de chaque fichier créé ou modifié et le lance une fois le fichier resté inchangé pendant {@link #QUIET_PERIOD} millisecondes.
+     */
+    private void watch() {
+        try {
+            schedule();
+            while (!Thread.currentThread().isInterrupted()) {
+                java.nio.file.WatchKey key = this.watcher.poll(QUIET_PERIOD, java.util.concurrent.TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    for (java.nio.file.WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == java.nio.file.StandardWatchEventKinds.OVERFLOW)
+                            schedule();
+                        else
+                            this.pending.put(this.directory.resolve((java.nio.file.Path) event.context()), System.nanoTime() + QUIET_PERIOD * 1_000_000);
+                    }
+                    if (!key.reset())
+                        return;
+                }
+                long now = System.nanoTime();
+                java.util.Iterator<java.util.Map.Entry<java.nio.file.Path, Long>> it = this.pending.entrySet().iterator();
+                while (it.hasNext()) {
+                    java.util.Map.Entry<java.nio.file.Path, Long> entry = it.next();
+                    if (entry.getValue() - now <= 0) {
+                        it.remove();
+                        submit(entry.getKey());
+                    }
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (java.nio.file.ClosedWatchServiceException ex) {
+            // Import fermé
+        }
+    }
+
+    /**
+     * Planifie l'import immédiat de tous les fichiers du dossier.
+     */
+    private void schedule() {
+        try (java.nio.file.DirectoryStream<java.nio.file.Path> stream = java.nio.file.Files.newDirectoryStream(this.directory)) {
+            for (java.nio.file.Path file : stream)
+                this.pending.put(file, System.nanoTime());
+        } catch (java.io.IOException ex) {
+            // Dossier inaccessible : les prochains événements seront traités
+        }
+    }
+
+    /**
+     * Lance l'import d'un fichier s'il correspond à une image système.
+     *
+     * @param file Le fichier à importer.
+     */
+    private void submit(java.nio.file.Path file) {
+        Slot slot = slotOf(file);
+        if (slot != null) {
+            try {
+                this.executor.execute(slot, () -> process(slot, file));
+            } catch (java.util.concurrent.RejectedExecutionException ex) {
+                // Import fermé
+            }
+        }
+    }
+
+    /**
+     * Importe un fichier : lecture et vérification de l'en-tête, comparaison de l'empreinte avec celle du dernier import, décodage de la miniature (mise en cache), puis avertissement du listener.
+     * Une erreur du décodeur (ex: une IllegalArgumentException levée par ImageIO sur des données compressées corrompues) rejette le fichier comme une image invalide.
+     *
+     * @param slot L'image système du fichier.
+     * @param file Le fichier à importer.
+     */
+    private void process(Slot slot, java.nio.file.Path file) {
+        if (!java.nio.file.Files.isRegularFile(file))
+            return;
+        byte[] datas;
+        String hash;
+        try {
+            datas = LocalImage.read(file);
+            hash  = ImageCache.hash(datas);
+            if (hash.equals(this.hashes.get(slot)))
+                return;
+            Thumbnails.thumbnail(datas, hash);
+        } catch (java.io.IOException | ScreenFormat.FormatException ex) {
+            this.listener.rejected(slot, file, ex.getMessage());
+            return;
+        } catch (RuntimeException ex) {
+            this.listener.rejected(slot, file, ex.getMessage() != null ? ex.getMessage() : ex.toString());
+            return;
+        }
+        this.hashes.put(slot, hash);
+        this.listener.imported(slot, file, datas);
+    }
+    
+    
+    
+//METHODE PRIVATE STATIC
+    /**
+     * Renvoie l'image système correspondant au nom d'un fichier.
+     *
+     * @param file Le fichier.
+     * @return L'image système, ou null si le nom du fichier ne correspond à aucune image système.
+     */
+    private static Slot slotOf(java.nio.file.Path file) {
+        String name = file.getFileName().toString().toLowerCase(java.util.Locale.ROOT);
+        if (!name.endsWith(".png"))
+            return null;
+        return Slot.of(name.substring(0, name.length() - 4));
+    }
+    
+    
+    
+//INTERFACE
+    /**
+     * Cette interface permet à un objet d'être mis au courant des fichiers importés par un {@link FolderImport}. Ses méthodes sont appelées depuis les threads de l'import
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public interface Listener {
+    
+    
+    
+    //METHODES PUBLICS
+        /**
+         * Lorsqu'un fichier nouveau ou modifié a été importé (sa miniature est déjà en cache).
+         * @param slot L'image système du fichier
+         * @param file Le fichier importé
+         * @param datas Les données du fichier
+         */
+        public void imported(Slot slot, java.nio.file.Path file, byte[] datas);
+
+        /**
+         * Lorsqu'un fichier n'a pas pu être importé (fichier illisible, qui n'est pas une image PNG ou dont les dimensions ne sont pas celles d'une image système). Le fichier sera à nouveau importé à sa prochaine modification.
+         * @param slot L'image système du fichier
+         * @param file Le fichier rejeté
+         * @param reason La raison du rejet
+         */
+        public default void rejected(Slot slot, java.nio.file.Path file, String reason) {
+
+        }
+    
+    
+    
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+/**
+ * Classe utilitaire qui lit les images système stockées sur le PC à l'aide d'un {@link java.nio.channels.FileChannel}.
+ * L'en-tête PNG ({@link ScreenFormat#HEADER_LENGTH} octets) est toujours lu et vérifié en premier, de sorte qu'un fichier qui n'est pas une image système est rejeté sans être lu en entier. Le reste du fichier est ensuite lu en une seule copie : soit directement dans un tableau de la taille exacte du fichier ({@link #read(java.nio.file.Path)}), soit en projetant le fichier en mémoire pour le décoder sur place ({@link #decode(java.nio.file.Path)}).
+ * Elle ne dépend pas de Swing et peut donc être utilisée en mode headless.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class LocalImage {
+    
+    
+    
+//CONSTANTE
+    /**
+     * La taille maximum d'une image lue dans un tableau (en octets)
+     */
+    private final static long MAX_SIZE = Integer.MAX_VALUE - 8;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private LocalImage() {
+
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Lit uniquement l'en-tête PNG d'un fichier et vérifie qu'il respecte les dimensions d'une image système.
+     *
+     * @param path Le fichier à lire.
+     * @return L'en-tête de l'image.
+     * @throws java.io.IOException Si le fichier ne peut pas être lu.
+     * @throws ScreenFormat.FormatException Si le fichier n'est pas une image PNG ou si ses dimensions ne correspondent pas à celles d'une image système.
+     */
+    public static ScreenFormat.Header readHeader(java.nio.file.Path path) throws java.io.IOException, ScreenFormat.FormatException {
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(path, java.nio.file.StandardOpenOption.READ)) {
+            byte[] header = new byte[ScreenFormat.HEADER_LENGTH];
+            return readHeader(channel, header);
+        }
+    }
+
+    /**
+     * Lit un fichier après avoir vérifié son en-tête PNG. Les données sont lues directement dans un tableau de la taille exacte du fichier (l'en-tête y compris), sans tampon intermédiaire.
+     *
+     * @param path Le fichier à lire.
+     * @return Les données du fichier.
+     * @throws java.io.IOException Si le fichier ne peut pas être lu, s'il est trop grand, ou si sa taille change pendant la lecture.
+     * @throws ScreenFormat.FormatException Si le fichier n'est pas une image PNG ou si ses dimensions ne correspondent pas à celles d'une image système.
+     */
+    public static byte[] read(java.nio.file.Path path) throws java.io.IOException, ScreenFormat.FormatException {
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(path, java.nio.file.StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAX_SIZE)
+                throw new java.io.IOException("The file " + path + " is too large !");
+            byte[] datas = new byte[(int) Math.max(size, ScreenFormat.HEADER_LENGTH)];
+            readHeader(channel, datas);
+            java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(datas, ScreenFormat.HEADER_LENGTH, datas.length - ScreenFormat.HEADER_LENGTH);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0)
+                    throw new java.io.IOException("The size of " + path + " has changed while reading !");
+            }
+            if (channel.read(java.nio.ByteBuffer.allocate(1)) >= 0)
+                throw new java.io.IOException("The size of " + path + " has changed while reading !");
+            return datas;
+        }
+    }
+
+    /**
+     * Décode un fichier après avoir vérifié son en-tête PNG. Le fichier est projeté en mémoire puis décodé sur place par ImageIO, sans être recopié dans un tableau.
+     * À utiliser lorsque seuls les pixels de l'image sont nécessaires (validation, aperçu...).
+     *
+     * @param path Le fichier à décoder.
+     * @return L'image décodée.
+     * @throws java.io.IOException Si le fichier ne peut pas être lu.
+     * @throws ScreenFormat.FormatException Si le fichier n'est pas une image PNG ou si ses dimensions ne correspondent pas à celles d'une image système.
+     */
+    public static java.awt.image.BufferedImage decode(java.nio.file.Path path) throws java.io.IOException, ScreenFormat.FormatException {
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(path, java.nio.file.StandardOpenOption.READ)) {
+            readHeader(channel, new byte[ScreenFormat.HEADER_LENGTH]);
+            long size = channel.size();
+            if (size > MAX_SIZE)
+                throw new java.io.IOException("The file " + path + " is too large !");
+            return ScreenFormat.decode(channel.map(java.nio.channels.FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+    
+    
+    
+//METHODE PRIVATE STATIC
+    /**
+     * Lit l'en-tête PNG au début d'un fichier et vérifie qu'il respecte les dimensions d'une image système.
+     *
+     * @param channel Le canal du fichier, positionné au début du fichier. Il est positionné juste après l'en-tête au retour de la méthode.
+     * @param datas Le tableau dans lequel lire l'en-tête (ses {@link ScreenFormat#HEADER_LENGTH} premiers octets).
+     * @return L'en-tête de l'image.
+     * @throws java.io.IOException Si le fichier ne peut pas être lu.
+     * @throws ScreenFormat.FormatException Si le fichier n'est pas une image PNG ou si ses dimensions ne correspondent pas à celles d'une image système.
+     */
+    private static ScreenFormat.Header readHeader(java.nio.channels.FileChannel channel, byte[] datas) throws java.io.IOException, ScreenFormat.FormatException {
+        java.nio.ByteBuffer buffer = java.nio.ByteBuffer.wrap(datas, 0, ScreenFormat.HEADER_LENGTH);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                throw new ScreenFormat.FormatException("This is not a PNG image !");
+        }
+        ScreenFormat.Header header = ScreenFormat.readHeader(datas);
+        ScreenFormat.check(header);
+        return header;
+    }
+
+
+
+}
\ No newline at end of file
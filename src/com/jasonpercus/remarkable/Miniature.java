@@ -10,6 +10,10 @@ package com.jasonpercus.remarkable;
 
 
 
+import com.jasonpercus.util.ImageCache;
+
+
+
 /**
  * Une classe représentant une miniature d'image affichée dans un JPanel.
  * La miniature est une version réduite de l'image originale, avec des dimensions spécifiques. 
@@ -22,30 +26,17 @@ public class Miniature extends javax.swing.JPanel {
     
     
     
-//CONSTANTES
-    /**
-     * Correspond à la largeur de l'image originale
-     */
-    private final static int WIDTH_ORIGINAL_IMG  = 1404;
-    
-    /**
-     * Correspond à la hauteur de l'image originale
-     */
-    private final static int HEIGHT_ORIGINAL_IMG = 1872;
-    
-    /**
-     * Correspond à la proportion de la miniature par rapport à la taille de l'image originale
-     */
-    private final static int PROPORTION = 6;
-
-    
-    
 //ATTRIBUTS
     /**
      * Les données de l'image.
      */
     private final byte[] datas;
 
+    /**
+     * L'empreinte des données de l'image (voir {@link ImageCache#hash(byte[])}).
+     */
+    private final String hash;
+
     /**
      * Le nom du fichier de l'image.
      */
@@ -55,7 +46,7 @@ public class Miniature extends javax.swing.JPanel {
      * L'image miniature.
      */
     private java.awt.image.BufferedImage image;
-
+    
     
     
 //CONSTRUCTOR
@@ -73,21 +64,13 @@ public class Miniature extends javax.swing.JPanel {
         super.setCursor(new java.awt.Cursor(java.awt.Cursor.HAND_CURSOR));
         super.setToolTipText("Click on me to view larger image");
         this.datas    = datas;
+        this.hash     = ImageCache.hash(datas);
         this.nameFile = name;
 
-        java.io.ByteArrayInputStream bis = new java.io.ByteArrayInputStream(datas);
-        java.awt.image.BufferedImage bi  = javax.imageio.ImageIO.read(bis);
-
-        if (bi.getWidth() == WIDTH_ORIGINAL_IMG && bi.getHeight() == HEIGHT_ORIGINAL_IMG) {
-            int w = bi.getWidth()  / PROPORTION;
-            int h = bi.getHeight() / PROPORTION;
-
-            this.image = new java.awt.image.BufferedImage(w, h, bi.getType());
-            java.awt.Graphics2D g = this.image.createGraphics();
-            g.drawImage(bi, 0, 0, w, h, null);
-            g.dispose();
-        } else {
-            throw new MiniatureException(String.format("The image must be %dpx in width and %dpx in height !", WIDTH_ORIGINAL_IMG, HEIGHT_ORIGINAL_IMG));
+        try {
+            this.image = Thumbnails.thumbnail(datas, this.hash);
+        } catch (ScreenFormat.FormatException ex) {
+            throw new MiniatureException(ex.getMessage());
         }
         
         super.addMouseListener(new java.awt.event.MouseAdapter() {
@@ -96,11 +79,11 @@ public class Miniature extends javax.swing.JPanel {
                 try {
                     Viewer viewer = new Viewer(parent, Miniature.this);
                     viewer.setVisible(true);
-                } catch (java.io.IOException ex) {}
+                } catch (java.io.IOException | ScreenFormat.FormatException ex) {}
             }
         });
     }
-
+    
     
     
 //GETTERS
@@ -113,6 +96,15 @@ public class Miniature extends javax.swing.JPanel {
         return datas;
     }
 
+    /**
+     * Récupère l'empreinte des données de l'image.
+     *
+     * @return L'empreinte des données de l'image (voir {@link ImageCache#hash(byte[])}).
+     */
+    public String getHash() {
+        return this.hash;
+    }
+
     /**
      * Récupère le nom du fichier de l'image.
      *
@@ -121,7 +113,7 @@ public class Miniature extends javax.swing.JPanel {
     public String getNameFile() {
         return this.nameFile;
     }
-
+    
     
     
 //METHODE PUBLIC
@@ -134,7 +126,7 @@ public class Miniature extends javax.swing.JPanel {
     public void paintComponent(java.awt.Graphics g) {
         g.drawImage(image, 0, 0, null);
     }
-
+    
     
     
 //CLASS
@@ -145,9 +137,9 @@ public class Miniature extends javax.swing.JPanel {
      * @version 1.0
      */
     public class MiniatureException extends Exception {
-
-        
-        
+    
+    
+    
     //CONSTRUCTOR
         /**
          * Construit une nouvelle instance de MiniatureException avec le message d'erreur spécifié.
@@ -157,11 +149,11 @@ public class Miniature extends javax.swing.JPanel {
         public MiniatureException(String message) {
             super(message);
         }
-
-        
-        
-    }
-
     
     
+    
+    }
+
+
+
 }
\ No newline at end of file
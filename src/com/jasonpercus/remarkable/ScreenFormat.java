@@ -0,0 +1,313 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import com.jasonpercus.util.ByteBufferImageInputStream;
+
+
+
+/**
+ * Classe utilitaire qui regroupe les règles que doit respecter une image système de la tablette Remarkable 2.
+ * Elle ne dépend pas de Swing et peut donc être utilisée en mode headless.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class ScreenFormat {
+    
+    
+    
+//CONSTANTES
+    /**
+     * Correspond à la largeur d'une image système
+     */
+    public final static int WIDTH  = 1404;
+
+    /**
+     * Correspond à la hauteur d'une image système
+     */
+    public final static int HEIGHT = 1872;
+
+    /**
+     * Correspond au nombre de niveaux de gris affichés par l'écran e-ink de la tablette (voir {@link com.jasonpercus.util.Dither})
+     */
+    public final static int GRAY_LEVELS = 16;
+
+    /**
+     * Correspond à la signature qui débute tout fichier PNG
+     */
+    private final static byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * Correspond au nombre d'octets à lire pour obtenir la signature et le chunk IHDR complet d'un fichier PNG
+     */
+    public final static int HEADER_LENGTH = 33;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private ScreenFormat() {
+
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Décode une image et vérifie qu'elle respecte les dimensions d'une image système.
+     * Les dimensions sont d'abord vérifiées sur l'en-tête PNG, de sorte qu'une image invalide est rejetée avant tout décodage des pixels.
+     *
+     * @param datas Les données de l'image.
+     * @return L'image décodée.
+     * @throws java.io.IOException Si une erreur d'entrée-sortie se produit lors de la lecture des données de l'image.
+     * @throws FormatException Si les données ne sont pas une image ou si ses dimensions ne correspondent pas à celles attendues.
+     */
+    public static java.awt.image.BufferedImage decode(byte[] datas) throws java.io.IOException, FormatException {
+        if (datas == null)
+            throw new FormatException("This is not a PNG image !");
+        return decode(java.nio.ByteBuffer.wrap(datas));
+    }
+
+    /**
+     * Décode une image et vérifie qu'elle respecte les dimensions d'une image système.
+     * Les données sont lues sur place par ImageIO (voir {@link ByteBufferImageInputStream}), sans être recopiées : le buffer peut donc être un fichier projeté en mémoire. La position et la limite du buffer ne sont pas modifiées.
+     *
+     * @param buffer Les données de l'image (de la position à la limite du buffer).
+     * @return L'image décodée.
+     * @throws java.io.IOException Si une erreur d'entrée-sortie se produit lors de la lecture des données de l'image.
+     * @throws FormatException Si les données ne sont pas une image ou si ses dimensions ne correspondent pas à celles attendues.
+     */
+    public static java.awt.image.BufferedImage decode(java.nio.ByteBuffer buffer) throws java.io.IOException, FormatException {
+        check(readHeader(buffer));
+        java.awt.image.BufferedImage image = javax.imageio.ImageIO.read(new ByteBufferImageInputStream(buffer));
+        if (image == null)
+            throw new FormatException("This is not a PNG image !");
+        if (image.getWidth() != WIDTH || image.getHeight() != HEIGHT)
+            throw new FormatException(String.format("The image must be %dpx in width and %dpx in height !", WIDTH, HEIGHT));
+        return image;
+    }
+
+    /**
+     * Lit l'en-tête PNG (signature et chunk IHDR) des données spécifiées, sans décoder les pixels.
+     *
+     * @param datas Les données de l'image (seuls les {@link #HEADER_LENGTH} premiers octets sont lus).
+     * @return L'en-tête de l'image.
+     * @throws FormatException Si les données ne commencent pas par un en-tête PNG valide.
+     */
+    public static Header readHeader(byte[] datas) throws FormatException {
+        if (datas == null || datas.length < HEADER_LENGTH)
+            throw new FormatException("This is not a PNG image !");
+        for (int i = 0; i < PNG_SIGNATURE.length; i++) {
+            if (datas[i] != PNG_SIGNATURE[i])
+                throw new FormatException("This is not a PNG image !");
+        }
+        if (readInt(datas, 8) != 13 || datas[12] != 'I' || datas[13] != 'H' || datas[14] != 'D' || datas[15] != 'R')
+            throw new FormatException("This is not a PNG image !");
+        Header header = new Header(readInt(datas, 16), readInt(datas, 20), datas[24] & 0xFF, datas[25] & 0xFF);
+        if (!header.isValid())
+            throw new FormatException("This is not a PNG image !");
+        return header;
+    }
+
+    /**
+     * Lit l'en-tête PNG (signature et chunk IHDR) d'un buffer, sans décoder les pixels. La position du buffer n'est pas modifiée.
+     *
+     * @param buffer Les données de l'image (seuls les {@link #HEADER_LENGTH} octets qui suivent la position du buffer sont lus).
+     * @return L'en-tête de l'image.
+     * @throws FormatException Si les données ne commencent pas par un en-tête PNG valide.
+     */
+    public static Header readHeader(java.nio.ByteBuffer buffer) throws FormatException {
+        if (buffer == null || buffer.remaining() < HEADER_LENGTH)
+            throw new FormatException("This is not a PNG image !");
+        byte[] datas = new byte[HEADER_LENGTH];
+        buffer.get(buffer.position(), datas);
+        return readHeader(datas);
+    }
+
+    /**
+     * Vérifie qu'un en-tête PNG respecte les dimensions d'une image système.
+     *
+     * @param header L'en-tête de l'image.
+     * @throws FormatException Si les dimensions de l'image ne correspondent pas à celles attendues.
+     */
+    public static void check(Header header) throws FormatException {
+        if (header.getWidth() != WIDTH || header.getHeight() != HEIGHT)
+            throw new FormatException(String.format("The image must be %dpx in width and %dpx in height !", WIDTH, HEIGHT));
+    }
+    
+    
+    
+//METHODE PRIVATE STATIC
+    /**
+     * Lit un entier non signé de 4 octets au format big-endian.
+     *
+     * @param datas Les données à lire.
+     * @param offset La position du premier octet.
+     * @return L'entier lu (négatif s'il dépasse la capacité d'un int, ce qui est interdit par la norme PNG).
+     */
+    private static int readInt(byte[] datas, int offset) {
+        return ((datas[offset] & 0xFF) << 24) | ((datas[offset + 1] & 0xFF) << 16) | ((datas[offset + 2] & 0xFF) << 8) | (datas[offset + 3] & 0xFF);
+    }
+    
+    
+    
+//CLASSES
+    /**
+     * Cette classe représente l'en-tête (chunk IHDR) d'une image PNG.
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public static class Header {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * La largeur de l'image
+         */
+        private final int width;
+
+        /**
+         * La hauteur de l'image
+         */
+        private final int height;
+
+        /**
+         * Le nombre de bits par échantillon (ou par index de palette)
+         */
+        private final int bitDepth;
+
+        /**
+         * Le type de couleur (0 = gris, 2 = RGB, 3 = palette, 4 = gris + alpha, 6 = RGBA)
+         */
+        private final int colorType;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Construit un en-tête PNG.
+         *
+         * @param width La largeur de l'image.
+         * @param height La hauteur de l'image.
+         * @param bitDepth Le nombre de bits par échantillon.
+         * @param colorType Le type de couleur.
+         */
+        public Header(int width, int height, int bitDepth, int colorType) {
+            this.width     = width;
+            this.height    = height;
+            this.bitDepth  = bitDepth;
+            this.colorType = colorType;
+        }
+    
+    
+    
+    //GETTERS
+        /**
+         * Renvoie la largeur de l'image.
+         *
+         * @return La largeur de l'image.
+         */
+        public int getWidth() {
+            return this.width;
+        }
+
+        /**
+         * Renvoie la hauteur de l'image.
+         *
+         * @return La hauteur de l'image.
+         */
+        public int getHeight() {
+            return this.height;
+        }
+
+        /**
+         * Renvoie le nombre de bits par échantillon (ou par index de palette).
+         *
+         * @return Le nombre de bits par échantillon.
+         */
+        public int getBitDepth() {
+            return this.bitDepth;
+        }
+
+        /**
+         * Renvoie le type de couleur (0 = gris, 2 = RGB, 3 = palette, 4 = gris + alpha, 6 = RGBA).
+         *
+         * @return Le type de couleur.
+         */
+        public int getColorType() {
+            return this.colorType;
+        }
+
+        /**
+         * Détermine si l'en-tête respecte la norme PNG (dimensions positives et combinaison type de couleur / profondeur autorisée).
+         *
+         * @return True si l'en-tête est valide, sinon false.
+         */
+        public boolean isValid() {
+            if (this.width <= 0 || this.height <= 0)
+                return false;
+            switch (this.colorType) {
+                case 0:
+                    return this.bitDepth == 1 || this.bitDepth == 2 || this.bitDepth == 4 || this.bitDepth == 8 || this.bitDepth == 16;
+                case 3:
+                    return this.bitDepth == 1 || this.bitDepth == 2 || this.bitDepth == 4 || this.bitDepth == 8;
+                case 2:
+                case 4:
+                case 6:
+                    return this.bitDepth == 8 || this.bitDepth == 16;
+                default:
+                    return false;
+            }
+        }
+
+        /**
+         * Renvoie une représentation textuelle de l'en-tête.
+         *
+         * @return La représentation textuelle de l'en-tête.
+         */
+        @Override
+        public String toString() {
+            return String.format("%dx%d, bit depth %d, color type %d", this.width, this.height, this.bitDepth, this.colorType);
+        }
+    
+    
+    
+    }
+
+    /**
+     * Une exception qui indique qu'une image ne respecte pas le format d'une image système.
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public static class FormatException extends Exception {
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Construit une nouvelle instance de FormatException avec le message d'erreur spécifié.
+         *
+         * @param message Le message d'erreur associé à cette exception.
+         */
+        public FormatException(String message) {
+            super(message);
+        }
+    
+    
+    
+    }
+
+
+
+}
\ No newline at end of file
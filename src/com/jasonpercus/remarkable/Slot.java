@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+/**
+ * Cette énumération liste les images système de la tablette Remarkable 2 (écrans affichés lorsque la tablette est éteinte, en veille...) que l'application permet de remplacer.
+ * Chaque image système correspond à un fichier du dossier {@link #REMOTE_DIRECTORY} de la tablette, et l'application embarque son original (voir {@link Assets}).
+ * @author JasonPercus
+ * @version 1.0
+ */
+public enum Slot {
+
+    /**
+     * L'image affichée lorsque le niveau de la batterie de la tablette est critique
+     */
+    BATTERYEMPTY("batteryempty"),
+
+    /**
+     * L'image affichée lorsque la tablette est éteinte
+     */
+    POWEROFF("poweroff"),
+
+    /**
+     * L'image affichée lorsque la tablette redémarre
+     */
+    REBOOTING("rebooting"),
+
+    /**
+     * L'image affichée lorsque la tablette s'endort
+     */
+    SLEEPING("sleeping"),
+
+    /**
+     * L'image affichée lorsque la tablette est en veille
+     */
+    SUSPENDED("suspended");
+    
+    
+    
+//CONSTANTE
+    /**
+     * Le dossier des images système sur la tablette
+     */
+    public final static String REMOTE_DIRECTORY = "/usr/share/remarkable/";
+    
+    
+    
+//ATTRIBUT
+    /**
+     * Le nom de l'image système (ex: suspended)
+     */
+    private final String name;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Crée une image système.
+     * @param name Le nom de l'image système
+     */
+    private Slot(String name) {
+        this.name = name;
+    }
+    
+    
+    
+//GETTERS
+    /**
+     * Renvoie le nom de l'image système.
+     * @return Le nom de l'image système (ex: suspended)
+     */
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Renvoie le nom du fichier de l'image système.
+     * @return Le nom du fichier (ex: suspended.png)
+     */
+    public String getFileName() {
+        return this.name + ".png";
+    }
+
+    /**
+     * Renvoie le chemin du fichier de l'image système sur la tablette.
+     * @return Le chemin du fichier (ex: /usr/share/remarkable/suspended.png)
+     */
+    public String getRemotePath() {
+        return REMOTE_DIRECTORY + getFileName();
+    }
+
+    /**
+     * Renvoie l'image d'origine de l'image système embarquée dans l'application (voir {@link Assets#original(String)}). Le tableau renvoyé est partagé : il ne doit pas être modifié.
+     * @return Les données de l'image d'origine
+     * @throws java.io.IOException Si l'image ne peut pas être lue
+     */
+    public byte[] getOriginal() throws java.io.IOException {
+        return Assets.original(this.name);
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Renvoie l'image système correspondant à un nom.
+     * @param name Le nom de l'image système (ex: suspended)
+     * @return L'image système, ou null si aucune image système ne porte ce nom
+     */
+    public static Slot of(String name) {
+        for (Slot slot : values()) {
+            if (slot.name.equals(name))
+                return slot;
+        }
+        return null;
+    }
+
+    /**
+     * Renvoie les noms de toutes les images système.
+     * @return Les noms des images système, dans l'ordre de l'énumération
+     */
+    public static java.util.List<String> names() {
+        java.util.List<String> names = new java.util.ArrayList<>();
+        for (Slot slot : values())
+            names.add(slot.name);
+        return names;
+    }
+
+
+
+}
\ No newline at end of file
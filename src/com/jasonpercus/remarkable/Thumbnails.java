@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.remarkable;
+
+
+
+import com.jasonpercus.util.ImageCache;
+import com.jasonpercus.util.Scaler;
+
+
+
+/**
+ * Classe utilitaire qui produit les images réduites des images système et les conserve dans un cache partagé.
+ * Les miniatures ({@link Miniature}) et les visualiseurs ({@link Viewer}) affichent ces images, tandis que le traitement par lot ({@link Batch}) et l'import d'un dossier ({@link FolderImport}) les préparent sans jamais charger de classe Swing.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Thumbnails {
+    
+    
+    
+//CONSTANTES
+    /**
+     * Correspond à la proportion de la miniature par rapport à la taille de l'image originale
+     */
+    final static int PROPORTION = 6;
+
+    /**
+     * Correspond au cache des images réduites, partagé par les miniatures et les visualiseurs. Son budget mémoire (32 Mo par défaut) peut être modifié avec la propriété système remarkable.cache.size (en octets)
+     */
+    final static ImageCache CACHE = new ImageCache(Long.getLong("remarkable.cache.size", 32L * 1024 * 1024));
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private Thumbnails() {
+
+    }
+    
+    
+    
+//METHODES STATICS
+    /**
+     * Renvoie l'image réduite d'une image système : depuis le cache si elle y est déjà, sinon en décodant puis en réduisant l'image avant de la placer dans le cache.
+     * La méthode peut être appelée depuis n'importe quel thread pour préparer une miniature à l'avance.
+     *
+     * @param datas Les données de l'image.
+     * @param hash L'empreinte des données de l'image (voir {@link ImageCache#hash(byte[])}).
+     * @return L'image réduite.
+     * @throws java.io.IOException Si une erreur d'entrée-sortie se produit lors de la lecture des données de l'image.
+     * @throws ScreenFormat.FormatException Si les données ne sont pas une image ou si ses dimensions ne correspondent pas à celles d'une image système.
+     */
+    static java.awt.image.BufferedImage thumbnail(byte[] datas, String hash) throws java.io.IOException, ScreenFormat.FormatException {
+        ScreenFormat.check(ScreenFormat.readHeader(datas));
+        String key = ImageCache.key(hash, ScreenFormat.WIDTH / PROPORTION, ScreenFormat.HEIGHT / PROPORTION);
+        java.awt.image.BufferedImage image = CACHE.get(key);
+        if (image == null) {
+            image = reduce(ScreenFormat.decode(datas));
+            CACHE.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * Réduit une image décodée à la taille d'une miniature (1/{@value #PROPORTION} de ses dimensions), sans passer par le cache.
+     *
+     * @param image L'image décodée.
+     * @return L'image réduite.
+     */
+    static java.awt.image.BufferedImage reduce(java.awt.image.BufferedImage image) {
+        return Scaler.scale(image, image.getWidth() / PROPORTION, image.getHeight() / PROPORTION);
+    }
+
+
+
+}
\ No newline at end of file
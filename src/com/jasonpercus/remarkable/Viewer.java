@@ -10,9 +10,16 @@ package com.jasonpercus.remarkable;
 
 
 
+import com.jasonpercus.util.Dither;
+import com.jasonpercus.util.ImageCache;
+import com.jasonpercus.util.Scaler;
+
+
+
 /**
  * La classe Viewer est une boîte de dialogue modale affichant une miniature d'image.
  * Elle permet à l'utilisateur de visualiser une image dans une fenêtre modale avec une fonctionnalité de fermeture au clic.
+ * Une case à cocher permet d'afficher un aperçu de l'image telle que l'écran e-ink la rendra, réduite à ses {@link ScreenFormat#GRAY_LEVELS} niveaux de gris par un tramage de Floyd-Steinberg (voir {@link Dither}).
  * @author JasonPercus
  * @version 1.0
  */
@@ -44,8 +51,9 @@ public class Viewer extends javax.swing.JDialog {
      * @param parent La fenêtre parente du visualiseur.
      * @param miniature La miniature d'image à afficher dans le visualiseur.
      * @throws java.io.IOException Si une erreur d'entrée/sortie survient lors de la création du visualiseur.
+     * @throws ScreenFormat.FormatException Si les données de la miniature ne sont pas une image système.
      */
-    public Viewer(java.awt.Frame parent, Miniature miniature) throws java.io.IOException {
+    public Viewer(java.awt.Frame parent, Miniature miniature) throws java.io.IOException, ScreenFormat.FormatException {
         super(parent, true);
         this.miniature       = miniature;
         this.view            = new View();
@@ -81,6 +89,7 @@ public class Viewer extends javax.swing.JDialog {
     private void initComponents() {
 
         content = new javax.swing.JPanel();
+        previewCheckBox = new javax.swing.JCheckBox();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
         setTitle("Viewer: " + this.miniature.getNameFile());
@@ -106,12 +115,35 @@ public class Viewer extends javax.swing.JDialog {
 
         getContentPane().add(content, java.awt.BorderLayout.CENTER);
 
+        previewCheckBox.setText("E-ink preview (" + ScreenFormat.GRAY_LEVELS + " gray levels)");
+        previewCheckBox.setFocusable(false);
+        previewCheckBox.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                previewCheckBoxActionPerformed(evt);
+            }
+        });
+        getContentPane().add(previewCheckBox, java.awt.BorderLayout.SOUTH);
+
         pack();
         setLocationRelativeTo(null);
     }// </editor-fold>//GEN-END:initComponents
 
+    /**
+     * Méthode appelée lorsque la case "E-ink preview" est cochée ou décochée : bascule la vue entre l'image et son aperçu e-ink.
+     *
+     * @param evt L'événement associé au clic sur la case.
+     */
+    private void previewCheckBoxActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_previewCheckBoxActionPerformed
+        try {
+            this.view.setPreview(previewCheckBox.isSelected());
+        } catch (java.io.IOException | ScreenFormat.FormatException ex) {
+            previewCheckBox.setSelected(false);
+        }
+    }//GEN-LAST:event_previewCheckBoxActionPerformed
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
     private javax.swing.JPanel content;
+    private javax.swing.JCheckBox previewCheckBox;
     // End of variables declaration//GEN-END:variables
 
     
@@ -126,11 +158,21 @@ public class Viewer extends javax.swing.JDialog {
 
         
         
-    //ATTRIBUT
+    //ATTRIBUTS
+        /**
+         * L'image réduite à la taille de la vue.
+         */
+        private final java.awt.image.BufferedImage original;
+
+        /**
+         * L'aperçu e-ink de l'image réduite, calculé au premier affichage.
+         */
+        private java.awt.image.BufferedImage preview;
+
         /**
-         * L'image à afficher dans la vue.
+         * L'image à afficher dans la vue (l'image réduite ou son aperçu e-ink).
          */
-        private final java.awt.image.BufferedImage image;
+        private java.awt.image.BufferedImage image;
         
         
         
@@ -139,19 +181,21 @@ public class Viewer extends javax.swing.JDialog {
          * Constructeur de la classe View.
          *
          * @throws java.io.IOException Si une erreur d'entrée/sortie survient lors de la création de la vue.
+         * @throws ScreenFormat.FormatException Si les données de la miniature ne sont pas une image système.
          */
-        public View() throws java.io.IOException {
+        public View() throws java.io.IOException, ScreenFormat.FormatException {
             super.setLayout(null);
-            java.io.ByteArrayInputStream bis = new java.io.ByteArrayInputStream(Viewer.this.miniature.getDatasFile());
-            java.awt.image.BufferedImage bi  = javax.imageio.ImageIO.read(bis);
+            int w = (int) (ScreenFormat.WIDTH  / 2.3);
+            int h = (int) (ScreenFormat.HEIGHT / 2.3);
 
-            int w = (int) (bi.getWidth()  / 2.3);
-            int h = (int) (bi.getHeight() / 2.3);
-
-            this.image = new java.awt.image.BufferedImage(w, h, bi.getType());
-            java.awt.Graphics2D g = this.image.createGraphics();
-            g.drawImage(bi, 0, 0, w, h, null);
-            g.dispose();
+            String key = ImageCache.key(Viewer.this.miniature.getHash(), w, h);
+            java.awt.image.BufferedImage cached = Thumbnails.CACHE.get(key);
+            if (cached == null) {
+                cached = Scaler.scale(ScreenFormat.decode(Viewer.this.miniature.getDatasFile()), w, h);
+                Thumbnails.CACHE.put(key, cached);
+            }
+            this.original = cached;
+            this.image    = cached;
             
             java.awt.Dimension dimension = new java.awt.Dimension(w, h);
             super.setSize(dimension);
@@ -169,7 +213,30 @@ public class Viewer extends javax.swing.JDialog {
         
         
         
-    //METHODE PUBLIC
+    //METHODES PUBLICS
+        /**
+         * Affiche l'aperçu e-ink de l'image ou l'image elle-même.
+         * L'aperçu est l'image en pleine résolution tramée comme celle téléversée par la ligne de commande (option --dither de {@link Cli}), puis réduite à la taille de la vue par le plus proche voisin, qui ne mélange pas les niveaux de gris. Il est placé dans le cache des images réduites.
+         *
+         * @param enabled True pour afficher l'aperçu e-ink, false pour afficher l'image.
+         * @throws java.io.IOException Si une erreur d'entrée/sortie survient lors du décodage de l'image.
+         * @throws ScreenFormat.FormatException Si les données ne sont pas une image système.
+         */
+        public void setPreview(boolean enabled) throws java.io.IOException, ScreenFormat.FormatException {
+            if (enabled && this.preview == null) {
+                String key = ImageCache.key(Viewer.this.miniature.getHash(), this.original.getWidth(), this.original.getHeight()) + "/gray" + ScreenFormat.GRAY_LEVELS;
+                java.awt.image.BufferedImage cached = Thumbnails.CACHE.get(key);
+                if (cached == null) {
+                    java.awt.image.BufferedImage dithered = Dither.quantize(ScreenFormat.decode(Viewer.this.miniature.getDatasFile()), ScreenFormat.GRAY_LEVELS, Dither.Method.FLOYD_STEINBERG);
+                    cached = nearest(dithered, this.original.getWidth(), this.original.getHeight());
+                    Thumbnails.CACHE.put(key, cached);
+                }
+                this.preview = cached;
+            }
+            this.image = enabled ? this.preview : this.original;
+            repaint();
+        }
+
         /**
          * Redessine la vue avec l'image.
          *
@@ -182,6 +249,29 @@ public class Viewer extends javax.swing.JDialog {
         
         
         
+    //METHODE PRIVATE
+        /**
+         * Redimensionne une image en gris par le plus proche voisin : chaque pixel de l'image redimensionnée reprend l'un des niveaux de gris de l'image d'origine.
+         *
+         * @param image L'image à redimensionner.
+         * @param width La largeur de l'image redimensionnée.
+         * @param height La hauteur de l'image redimensionnée.
+         * @return L'image redimensionnée, en gris 8 bits.
+         */
+        private java.awt.image.BufferedImage nearest(java.awt.image.BufferedImage image, int width, int height) {
+            java.awt.image.BufferedImage scaled = new java.awt.image.BufferedImage(width, height, java.awt.image.BufferedImage.TYPE_BYTE_GRAY);
+            java.awt.Graphics2D g = scaled.createGraphics();
+            try {
+                g.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION, java.awt.RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+                g.drawImage(image, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            return scaled;
+        }
+        
+        
+        
     }
 
     
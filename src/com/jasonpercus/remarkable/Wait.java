@@ -10,17 +10,29 @@ package com.jasonpercus.remarkable;
 
 
 
+import com.jasonpercus.util.EDT;
+
+
+
 /**
- * La classe Wait est une boîte de dialogue modale affichant un message d'attente avec une barre de progression indéterminée.
- * Elle est généralement utilisée pour indiquer qu'un processus est en cours d'exécution.
+ * La classe Wait est une boîte de dialogue modale affichant un message d'attente avec une barre de progression.
+ * Elle est généralement utilisée pour indiquer qu'un processus est en cours d'exécution. La barre de progression est indéterminée, sauf lorsque la boîte de dialogue suit un transfert de fichier : elle affiche alors l'avancement, le débit et le temps restant, et permet d'annuler le transfert.
  * @author JasonPercus
  * @version 1.0
  */
-public class Wait extends javax.swing.JDialog {
+public class Wait extends javax.swing.JDialog implements Connection.TransferListener {
+
+    
+    
+//ATTRIBUT
+    /**
+     * Détermine si l'utilisateur a demandé l'annulation du transfert
+     */
+    private volatile boolean cancelled;
 
     
     
-//CONSTRUCTOR
+//CONSTRUCTORS
     /**
      * Constructeur de la classe Wait.
      * 
@@ -28,14 +40,59 @@ public class Wait extends javax.swing.JDialog {
      * @param message Le message à afficher pendant l'attente.
      */
     public Wait(java.awt.Frame parent, String message) {
+        this(parent, message, false);
+    }
+
+    /**
+     * Constructeur de la classe Wait.
+     * 
+     * @param parent La fenêtre parente de la boîte de dialogue.
+     * @param message Le message à afficher pendant l'attente.
+     * @param cancellable True pour afficher un bouton permettant d'annuler le transfert suivi par la boîte de dialogue.
+     */
+    public Wait(java.awt.Frame parent, String message, boolean cancellable) {
         super(parent, true);
         initComponents();
         jLabel1.setText(message);
+        cancelButton.setVisible(cancellable);
     }
 
     
     
-//METHODE PRIVATE
+//METHODES PUBLICS
+    /**
+     * Détermine si l'utilisateur a demandé l'annulation du transfert.
+     *
+     * @return True si le transfert doit être annulé, sinon false.
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Affiche l'avancement d'un transfert. Cette méthode peut être appelée depuis n'importe quel thread.
+     *
+     * @param progress L'état d'avancement du transfert.
+     * @return False si l'utilisateur a demandé l'annulation du transfert, sinon true.
+     */
+    @Override
+    public boolean progress(Connection.TransferProgress progress) {
+        EDT.execute(() -> {
+            if (this.cancelled)
+                return;
+            int percent = progress.getPercent();
+            jProgressBar1.setIndeterminate(percent < 0);
+            if (percent >= 0)
+                jProgressBar1.setValue(percent);
+            long eta = progress.getEta();
+            jLabel2.setText(String.format("%.1f KB/s%s", progress.getBytesPerSecond() / 1024, eta < 0 ? "" : String.format(" - %d s left", (eta + 999) / 1000)));
+        });
+        return !this.cancelled;
+    }
+
+    
+    
+//METHODES PRIVATES
     /**
      * Cette méthode est appelée depuis le constructeur pour initialiser le formulaire.
      * AVERTISSEMENT : Ne modifiez PAS ce code. Le contenu de cette méthode est toujours régénéré par l'éditeur de formulaire.
@@ -48,6 +105,7 @@ public class Wait extends javax.swing.JDialog {
         jLabel1 = new javax.swing.JLabel();
         jProgressBar1 = new javax.swing.JProgressBar();
         jLabel2 = new javax.swing.JLabel();
+        cancelButton = new javax.swing.JButton();
 
         setDefaultCloseOperation(javax.swing.WindowConstants.DISPOSE_ON_CLOSE);
         setUndecorated(true);
@@ -62,6 +120,14 @@ public class Wait extends javax.swing.JDialog {
         jLabel2.setHorizontalAlignment(javax.swing.SwingConstants.RIGHT);
         jLabel2.setText("...please wait");
 
+        cancelButton.setText("Cancel");
+        cancelButton.setToolTipText("Cancels the transfer in progress.");
+        cancelButton.addActionListener(new java.awt.event.ActionListener() {
+            public void actionPerformed(java.awt.event.ActionEvent evt) {
+                cancelButtonActionPerformed(evt);
+            }
+        });
+
         javax.swing.GroupLayout jPanel1Layout = new javax.swing.GroupLayout(jPanel1);
         jPanel1.setLayout(jPanel1Layout);
         jPanel1Layout.setHorizontalGroup(
@@ -71,7 +137,10 @@ public class Wait extends javax.swing.JDialog {
                 .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.LEADING)
                     .addComponent(jLabel1, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)
                     .addComponent(jProgressBar1, javax.swing.GroupLayout.DEFAULT_SIZE, 374, Short.MAX_VALUE)
-                    .addComponent(jLabel2, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
+                    .addGroup(jPanel1Layout.createSequentialGroup()
+                        .addComponent(cancelButton)
+                        .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
+                        .addComponent(jLabel2, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE)))
                 .addContainerGap())
         );
         jPanel1Layout.setVerticalGroup(
@@ -82,7 +151,9 @@ public class Wait extends javax.swing.JDialog {
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                 .addComponent(jProgressBar1, javax.swing.GroupLayout.PREFERRED_SIZE, javax.swing.GroupLayout.DEFAULT_SIZE, javax.swing.GroupLayout.PREFERRED_SIZE)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
-                .addComponent(jLabel2)
+                .addGroup(jPanel1Layout.createParallelGroup(javax.swing.GroupLayout.Alignment.BASELINE)
+                    .addComponent(jLabel2)
+                    .addComponent(cancelButton))
                 .addContainerGap())
         );
 
@@ -92,7 +163,20 @@ public class Wait extends javax.swing.JDialog {
         setLocationRelativeTo(null);
     }// </editor-fold>//GEN-END:initComponents
 
+    /**
+     * Événement déclenché lorsqu'un utilisateur clique sur le bouton "Cancel".
+     * Le transfert en cours est interrompu dès le prochain bloc de données.
+     *
+     * @param evt L'événement d'action associé à cet événement.
+     */
+    private void cancelButtonActionPerformed(java.awt.event.ActionEvent evt) {//GEN-FIRST:event_cancelButtonActionPerformed
+        this.cancelled = true;
+        cancelButton.setEnabled(false);
+        jLabel2.setText("Cancelling...");
+    }//GEN-LAST:event_cancelButtonActionPerformed
+
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JButton cancelButton;
     private javax.swing.JLabel jLabel1;
     private javax.swing.JLabel jLabel2;
     private javax.swing.JPanel jPanel1;
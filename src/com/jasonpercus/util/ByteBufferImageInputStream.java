@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe représentant un flux d'entrée ImageIO qui lit directement un {@link java.nio.ByteBuffer} (un tableau enveloppé ou un fichier projeté en mémoire).
+ * Contrairement à {@link javax.imageio.ImageIO#read(java.io.InputStream)}, qui recopie le flux dans un cache (en mémoire ou dans un fichier temporaire) pour pouvoir s'y déplacer, les données sont lues sur place : le buffer est déjà accessible à n'importe quelle position.
+ * Le buffer n'est pas modifié (ni sa position, ni sa limite) : seules les données situées entre sa position et sa limite lors de la création du flux sont lues.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class ByteBufferImageInputStream extends javax.imageio.stream.ImageInputStreamImpl {
+    
+    
+    
+//ATTRIBUT
+    /**
+     * Les données lues, de la position 0 à la limite
+     */
+    private final java.nio.ByteBuffer buffer;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Construit un flux sur les données restantes d'un buffer.
+     *
+     * @param buffer Le buffer à lire.
+     */
+    public ByteBufferImageInputStream(java.nio.ByteBuffer buffer) {
+        this.buffer = buffer.slice();
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Lit un octet.
+     *
+     * @return L'octet lu (de 0 à 255), ou -1 à la fin des données.
+     * @throws java.io.IOException Si le flux est fermé.
+     */
+    @Override
+    public int read() throws java.io.IOException {
+        checkClosed();
+        bitOffset = 0;
+        if (streamPos >= this.buffer.limit())
+            return -1;
+        return this.buffer.get((int) streamPos++) & 0xFF;
+    }
+
+    /**
+     * Lit au plus len octets.
+     *
+     * @param b Le tableau dans lequel copier les octets lus.
+     * @param off La position du premier octet copié dans le tableau.
+     * @param len Le nombre maximum d'octets à lire.
+     * @return Le nombre d'octets lus, ou -1 à la fin des données.
+     * @throws java.io.IOException Si le flux est fermé.
+     */
+    @Override
+    public int read(byte[] b, int off, int len) throws java.io.IOException {
+        checkClosed();
+        java.util.Objects.checkFromIndexSize(off, len, b.length);
+        bitOffset = 0;
+        if (len == 0)
+            return 0;
+        long remaining = this.buffer.limit() - streamPos;
+        if (remaining <= 0)
+            return -1;
+        int n = (int) Math.min(len, remaining);
+        this.buffer.get((int) streamPos, b, off, n);
+        streamPos += n;
+        return n;
+    }
+
+    /**
+     * Renvoie la taille des données.
+     *
+     * @return La taille des données (en octets).
+     */
+    @Override
+    public long length() {
+        return this.buffer.limit();
+    }
+
+
+
+}
\ No newline at end of file
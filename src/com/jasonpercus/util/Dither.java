@@ -0,0 +1,237 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe utilitaire qui réduit une image à un nombre limité de niveaux de gris, comme ceux d'un écran e-ink, en la tramant pour conserver l'impression des nuances intermédiaires.
+ * Deux méthodes sont proposées : la diffusion d'erreur de Floyd-Steinberg (balayage en serpentin, meilleur rendu des dégradés) et le tramage ordonné de Bayer 8x8 (plus rapide, motif régulier et stable d'une image à l'autre).
+ * Les calculs sont faits sur le raster en octets de l'image, sans aucun appel à {@link java.awt.image.BufferedImage#getRGB(int, int)}. Les niveaux produits sont répartis uniformément de 0 à 255 : avec 16 niveaux ce sont des multiples de 17, qu'un encodeur PNG peut stocker en gris sur 4 bits (voir {@link PngOptimizer}).
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Dither {
+    
+    
+    
+//CONSTANTE
+    /**
+     * Correspond à la matrice de seuils de Bayer 8x8 (valeurs de 0 à 63)
+     */
+    private final static int[] BAYER = {
+         0, 32,  8, 40,  2, 34, 10, 42,
+        48, 16, 56, 24, 50, 18, 58, 26,
+        12, 44,  4, 36, 14, 46,  6, 38,
+        60, 28, 52, 20, 62, 30, 54, 22,
+         3, 35, 11, 43,  1, 33,  9, 41,
+        51, 19, 59, 27, 49, 17, 57, 25,
+        15, 47,  7, 39, 13, 45,  5, 37,
+        63, 31, 55, 23, 61, 29, 53, 21
+    };
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private Dither() {
+
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Réduit une image à un nombre limité de niveaux de gris.
+     * Les images en couleur sont d'abord converties en gris (luminance Rec. 601) et les pixels transparents sont posés sur un fond blanc.
+     *
+     * @param image L'image à réduire. Elle n'est pas modifiée.
+     * @param levels Le nombre de niveaux de gris (de 2 à 256).
+     * @param method La méthode de tramage.
+     * @return Une nouvelle image en gris 8 bits (TYPE_BYTE_GRAY) dont les pixels ne prennent que les niveaux demandés.
+     */
+    public static java.awt.image.BufferedImage quantize(java.awt.image.BufferedImage image, int levels, Method method) {
+        if (levels < 2 || levels > 256)
+            throw new IllegalArgumentException("The number of levels must be between 2 and 256");
+        int width  = image.getWidth();
+        int height = image.getHeight();
+        byte[] gray = gray(image);
+        if (method == Method.BAYER)
+            bayer(gray, width, height, levels);
+        else
+            floydSteinberg(gray, width, height, levels);
+        java.awt.image.BufferedImage result = new java.awt.image.BufferedImage(width, height, java.awt.image.BufferedImage.TYPE_BYTE_GRAY);
+        System.arraycopy(gray, 0, ((java.awt.image.DataBufferByte) result.getRaster().getDataBuffer()).getData(), 0, gray.length);
+        return result;
+    }
+    
+    
+    
+//METHODES PRIVATES STATICS
+    /**
+     * Renvoie une copie en gris 8 bits (un octet par pixel, sans marge en fin de ligne) des pixels d'une image.
+     * Les rasters en octets (gris, BGR, ABGR) sont lus directement ; les autres types d'images sont d'abord dessinés sur un fond blanc dans une image BGR.
+     *
+     * @param image L'image.
+     * @return Les niveaux de gris des pixels, ligne après ligne.
+     */
+    private static byte[] gray(java.awt.image.BufferedImage image) {
+        int width  = image.getWidth();
+        int height = image.getHeight();
+        int type   = image.getType();
+        java.awt.image.WritableRaster raster = image.getRaster();
+        boolean direct = (type == java.awt.image.BufferedImage.TYPE_BYTE_GRAY || type == java.awt.image.BufferedImage.TYPE_3BYTE_BGR || type == java.awt.image.BufferedImage.TYPE_4BYTE_ABGR)
+                && raster.getParent() == null && raster.getDataBuffer() instanceof java.awt.image.DataBufferByte && raster.getDataBuffer().getNumBanks() == 1;
+        if (!direct) {
+            java.awt.image.BufferedImage bgr = new java.awt.image.BufferedImage(width, height, java.awt.image.BufferedImage.TYPE_3BYTE_BGR);
+            java.awt.Graphics2D g = bgr.createGraphics();
+            try {
+                g.setColor(java.awt.Color.WHITE);
+                g.fillRect(0, 0, width, height);
+                g.drawImage(image, 0, 0, null);
+            } finally {
+                g.dispose();
+            }
+            image = bgr;
+            raster = bgr.getRaster();
+        }
+
+        java.awt.image.ComponentSampleModel sm = (java.awt.image.ComponentSampleModel) image.getSampleModel();
+        byte[] src = ((java.awt.image.DataBufferByte) raster.getDataBuffer()).getData();
+        int stride = sm.getScanlineStride();
+        int bands  = sm.getPixelStride();
+        int[] off  = sm.getBandOffsets();
+        byte[] dst = new byte[width * height];
+        if (bands == 1) {
+            for (int y = 0; y < height; y++)
+                System.arraycopy(src, y * stride + off[0], dst, y * width, width);
+            return dst;
+        }
+        //Bandes de TYPE_3BYTE_BGR (R, G, B) ou de TYPE_4BYTE_ABGR (R, G, B, A)
+        int r  = off[0];
+        int gr = off[1];
+        int b  = off[2];
+        int a  = bands == 4 && !image.isAlphaPremultiplied() ? off[3] : -1;
+        for (int y = 0, o = 0; y < height; y++) {
+            for (int x = 0, p = y * stride; x < width; x++, p += bands) {
+                //Luminance Rec. 601 en virgule fixe (coefficients sur 16 bits)
+                int l = (19595 * (src[p + r] & 0xFF) + 38470 * (src[p + gr] & 0xFF) + 7471 * (src[p + b] & 0xFF) + 32768) >> 16;
+                if (a >= 0) {
+                    int alpha = src[p + a] & 0xFF;
+                    l = (l * alpha + 255 * (255 - alpha) + 127) / 255;
+                }
+                dst[o++] = (byte) l;
+            }
+        }
+        return dst;
+    }
+
+    /**
+     * Trame les pixels par diffusion d'erreur de Floyd-Steinberg : l'erreur de quantification de chaque pixel est répartie sur ses voisins pas encore traités (7/16, 3/16, 5/16, 1/16). Les lignes sont parcourues en serpentin afin d'éviter les traînées diagonales.
+     *
+     * @param gray Les niveaux de gris des pixels, remplacés par les niveaux quantifiés.
+     * @param width La largeur de l'image.
+     * @param height La hauteur de l'image.
+     * @param levels Le nombre de niveaux de gris.
+     */
+    private static void floydSteinberg(byte[] gray, int width, int height, int levels) {
+        int[] values = values(levels);
+        int[] index  = new int[256];
+        for (int v = 0; v < 256; v++)
+            index[v] = (v * (levels - 1) + 127) / 255;
+
+        //Erreurs (multipliées par 16) de la ligne courante et de la suivante, avec une case de marge de chaque côté
+        int[] current = new int[width + 2];
+        int[] next    = new int[width + 2];
+        for (int y = 0; y < height; y++) {
+            boolean ltr = (y & 1) == 0;
+            int dir   = ltr ? 1 : -1;
+            int start = ltr ? 0 : width - 1;
+            for (int i = 0, x = start; i < width; i++, x += dir) {
+                int p = y * width + x;
+                int c = (gray[p] & 0xFF) + ((current[x + 1] + 8) >> 4);
+                c = c < 0 ? 0 : (c > 255 ? 255 : c);
+                int q = values[index[c]];
+                gray[p] = (byte) q;
+                int err = c - q;
+                current[x + 1 + dir] += err * 7;
+                next[x + 1 - dir]    += err * 3;
+                next[x + 1]          += err * 5;
+                next[x + 1 + dir]    += err;
+            }
+            int[] tmp = current;
+            current = next;
+            next = tmp;
+            java.util.Arrays.fill(next, 0);
+        }
+    }
+
+    /**
+     * Trame les pixels avec la matrice de Bayer 8x8 : chaque pixel est arrondi au niveau inférieur ou supérieur selon le seuil de sa position dans la matrice.
+     * Le niveau de chaque couple (seuil, gris) est précalculé dans une table de 64 x 256 octets, si bien que chaque pixel ne coûte qu'une lecture de table.
+     *
+     * @param gray Les niveaux de gris des pixels, remplacés par les niveaux quantifiés.
+     * @param width La largeur de l'image.
+     * @param height La hauteur de l'image.
+     * @param levels Le nombre de niveaux de gris.
+     */
+    private static void bayer(byte[] gray, int width, int height, int levels) {
+        int[] values = values(levels);
+        byte[] table = new byte[64 * 256];
+        for (int t = 0; t < 64; t++) {
+            for (int v = 0; v < 256; v++)
+                table[(t << 8) | v] = (byte) values[(v * (levels - 1) * 128 + (2 * t + 1) * 255) / (255 * 128)];
+        }
+        for (int y = 0, p = 0; y < height; y++) {
+            int row = (y & 7) << 3;
+            for (int x = 0; x < width; x++, p++)
+                gray[p] = table[(BAYER[row | (x & 7)] << 8) | (gray[p] & 0xFF)];
+        }
+    }
+
+    /**
+     * Renvoie les niveaux de gris produits, répartis uniformément de 0 à 255.
+     *
+     * @param levels Le nombre de niveaux de gris.
+     * @return Les niveaux de gris, du plus sombre au plus clair.
+     */
+    private static int[] values(int levels) {
+        int[] values = new int[levels];
+        for (int k = 0; k < levels; k++)
+            values[k] = (k * 255 + (levels - 1) / 2) / (levels - 1);
+        return values;
+    }
+    
+    
+    
+//ENUM
+    /**
+     * Cette énumération liste les méthodes de tramage.
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public enum Method {
+
+        /**
+         * Diffusion d'erreur de Floyd-Steinberg
+         */
+        FLOYD_STEINBERG,
+
+        /**
+         * Tramage ordonné de Bayer 8x8
+         */
+        BAYER;
+
+    }
+
+
+
+}
\ No newline at end of file
@@ -20,6 +20,14 @@ public class EDT {
     
     
     
+//CONSTANTE
+    /**
+     * Exécuteur qui exécute les tâches sur l'Event Dispatch Thread (EDT) de Swing. Il permet de ramener le résultat d'un {@link java.util.concurrent.CompletableFuture} sur l'EDT (ex: thenAcceptAsync(action, EDT.EXECUTOR)).
+     */
+    public final static java.util.concurrent.Executor EXECUTOR = EDT::execute;
+    
+    
+    
 //CONSTRUCTOR
     /**
      * Constructeur privé pour empêcher l'instanciation de la classe.
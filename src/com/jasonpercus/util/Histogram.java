@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe pour la mesure de la distribution de durées (en nanosecondes).
+ * Les durées sont rangées dans des intervalles de puissances de 2 : l'intervalle i contient les durées comprises entre 2^(i-1) (inclus) et 2^i (exclu). L'enregistrement d'une durée ne prend donc aucun verrou et n'alloue aucune mémoire, quel que soit le nombre de durées enregistrées.
+ * Les percentiles renvoyés sont la borne haute de l'intervalle qui les contient (soit une erreur d'au plus un facteur 2).
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Histogram {
+    
+    
+    
+//CONSTANTE
+    /**
+     * Le nombre d'intervalles de l'histogramme (un par bit d'un long).
+     */
+    public final static int BUCKETS = 64;
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * Le nombre de durées de chaque intervalle.
+     */
+    private final java.util.concurrent.atomic.AtomicLongArray counts;
+
+    /**
+     * La somme des durées enregistrées.
+     */
+    private final java.util.concurrent.atomic.LongAdder sum;
+
+    /**
+     * La plus grande durée enregistrée.
+     */
+    private final java.util.concurrent.atomic.AtomicLong max;
+    
+    
+    
+//CONSTRUCTORS
+    /**
+     * Constructeur qui initialise un histogramme vide.
+     */
+    public Histogram() {
+        this(new long[BUCKETS], 0, 0);
+    }
+
+    /**
+     * Constructeur privé qui initialise un histogramme à partir de valeurs existantes.
+     * @param counts Le nombre de durées de chaque intervalle.
+     * @param sum La somme des durées.
+     * @param max La plus grande durée.
+     */
+    private Histogram(long[] counts, long sum, long max) {
+        this.counts = new java.util.concurrent.atomic.AtomicLongArray(counts);
+        this.sum = new java.util.concurrent.atomic.LongAdder();
+        this.sum.add(sum);
+        this.max = new java.util.concurrent.atomic.AtomicLong(max);
+    }
+    
+    
+    
+//GETTERS
+    /**
+     * Renvoie le nombre de durées enregistrées.
+     * @return Le nombre de durées enregistrées.
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++)
+            count += this.counts.get(i);
+        return count;
+    }
+
+    /**
+     * Renvoie la somme des durées enregistrées.
+     * @return La somme des durées (en nanosecondes).
+     */
+    public long getSum() {
+        return this.sum.sum();
+    }
+
+    /**
+     * Renvoie la plus grande durée enregistrée.
+     * @return La plus grande durée (en nanosecondes), ou 0 si aucune durée n'a été enregistrée.
+     */
+    public long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * Renvoie la durée moyenne.
+     * @return La durée moyenne (en nanosecondes), ou 0 si aucune durée n'a été enregistrée.
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) getSum() / count;
+    }
+
+    /**
+     * Renvoie le nombre de durées de chaque intervalle.
+     * @return Un tableau de {@link #BUCKETS} cases où la case i contient le nombre de durées comprises entre 2^(i-1) et 2^i nanosecondes.
+     */
+    public long[] getBuckets() {
+        long[] buckets = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            buckets[i] = this.counts.get(i);
+        return buckets;
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Enregistre une durée.
+     * @param nanos La durée (en nanosecondes). Une durée négative est comptée comme nulle.
+     */
+    public void record(long nanos) {
+        if (nanos < 0)
+            nanos = 0;
+        this.counts.incrementAndGet(64 - Long.numberOfLeadingZeros(nanos));
+        this.sum.add(nanos);
+        this.max.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Renvoie une estimation d'un percentile des durées enregistrées.
+     * @param percentile Le percentile voulu (entre 0 et 100).
+     * @return La borne haute de l'intervalle qui contient le percentile (en nanosecondes, bornée par la plus grande durée), ou 0 si aucune durée n'a été enregistrée.
+     */
+    public long getPercentile(double percentile) {
+        long[] buckets = getBuckets();
+        long count = 0;
+        for (long c : buckets)
+            count += c;
+        if (count == 0)
+            return 0;
+        long rank = (long) Math.ceil(Math.max(0, Math.min(100, percentile)) / 100.0 * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets[i];
+            if (seen >= Math.max(1, rank))
+                return Math.min(i == 0 ? 0 : i >= 63 ? Long.MAX_VALUE : (1L << i) - 1, getMax());
+        }
+        return getMax();
+    }
+
+    /**
+     * Renvoie une copie figée de l'histogramme.
+     * @return Une copie de l'histogramme.
+     */
+    public Histogram copy() {
+        return new Histogram(getBuckets(), getSum(), getMax());
+    }
+
+    /**
+     * Renvoie une représentation textuelle de l'histogramme (nombre, moyenne, médiane, 99e percentile et maximum en millisecondes).
+     * @return Une représentation textuelle de l'histogramme.
+     */
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT, "count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms", getCount(), getMean() / 1e6, getPercentile(50) / 1e6, getPercentile(99) / 1e6, getMax() / 1e6);
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe représentant un cache LRU d'images décodées, borné en mémoire.
+ * Les images sont indexées par une clé qui dépend du contenu du fichier d'origine (voir {@link #hash(byte[])}) et de la variante (dimensions...) de l'image. Lorsque la taille totale des images dépasse le budget mémoire, les images les moins récemment utilisées sont retirées.
+ * Cette classe est thread-safe.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class ImageCache {
+    
+    
+    
+//ATTRIBUTS
+    /**
+     * Les images du cache, de la moins récemment utilisée à la plus récemment utilisée.
+     */
+    private final java.util.LinkedHashMap<String, java.awt.image.BufferedImage> images;
+
+    /**
+     * Le budget mémoire du cache (en octets).
+     */
+    private final long maxSize;
+
+    /**
+     * La taille totale des images du cache (en octets).
+     */
+    private long size;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Construit un cache vide.
+     *
+     * @param maxSize Le budget mémoire du cache (en octets).
+     */
+    public ImageCache(long maxSize) {
+        this.images  = new java.util.LinkedHashMap<>(16, 0.75f, true);
+        this.maxSize = maxSize;
+        this.size    = 0;
+    }
+    
+    
+    
+//GETTERS
+    /**
+     * Renvoie le budget mémoire du cache.
+     *
+     * @return Le budget mémoire du cache (en octets).
+     */
+    public long getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Renvoie la taille totale des images du cache.
+     *
+     * @return La taille totale des images du cache (en octets).
+     */
+    public synchronized long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Renvoie le nombre d'images du cache.
+     *
+     * @return Le nombre d'images du cache.
+     */
+    public synchronized int getCount() {
+        return this.images.size();
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Renvoie une image du cache et la marque comme la plus récemment utilisée.
+     *
+     * @param key La clé de l'image (voir {@link #key(String, int, int)}).
+     * @return L'image, ou null si elle n'est pas dans le cache.
+     */
+    public synchronized java.awt.image.BufferedImage get(String key) {
+        return this.images.get(key);
+    }
+
+    /**
+     * Ajoute une image au cache, puis retire les images les moins récemment utilisées tant que le budget mémoire est dépassé.
+     * Une image plus grande que le budget mémoire n'est pas conservée. Les images du cache sont partagées : elles ne doivent pas être modifiées.
+     *
+     * @param key La clé de l'image (voir {@link #key(String, int, int)}).
+     * @param image L'image à ajouter.
+     */
+    public synchronized void put(String key, java.awt.image.BufferedImage image) {
+        long imageSize = sizeOf(image);
+        if (imageSize > this.maxSize)
+            return;
+        java.awt.image.BufferedImage old = this.images.put(key, image);
+        if (old != null)
+            this.size -= sizeOf(old);
+        this.size += imageSize;
+        java.util.Iterator<java.awt.image.BufferedImage> it = this.images.values().iterator();
+        while (this.size > this.maxSize && it.hasNext()) {
+            this.size -= sizeOf(it.next());
+            it.remove();
+        }
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public synchronized void clear() {
+        this.images.clear();
+        this.size = 0;
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Calcule l'empreinte (SHA-256) du contenu d'un fichier, à utiliser dans les clés du cache.
+     *
+     * @param datas Le contenu du fichier.
+     * @return L'empreinte du contenu en hexadécimal.
+     */
+    public static String hash(byte[] datas) {
+        try {
+            byte[] hash = java.security.MessageDigest.getInstance("SHA-256").digest(datas);
+            return java.util.HexFormat.of().formatHex(hash);
+        } catch (java.security.NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Construit la clé d'une image du cache.
+     *
+     * @param hash L'empreinte du fichier d'origine (voir {@link #hash(byte[])}).
+     * @param width La largeur de l'image.
+     * @param height La hauteur de l'image.
+     * @return La clé de l'image.
+     */
+    public static String key(String hash, int width, int height) {
+        return hash + '@' + width + 'x' + height;
+    }
+    
+    
+    
+//METHODE PRIVATE STATIC
+    /**
+     * Estime la place occupée en mémoire par les pixels d'une image.
+     *
+     * @param image L'image.
+     * @return La taille des pixels de l'image (en octets).
+     */
+    private static long sizeOf(java.awt.image.BufferedImage image) {
+        java.awt.image.DataBuffer buffer = image.getRaster().getDataBuffer();
+        return (long) buffer.getSize() * buffer.getNumBanks() * (java.awt.image.DataBuffer.getDataTypeSize(buffer.getDataType()) / 8);
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe pour la gestion de files d'attente de tâches indexées par une clé (par exemple l'adresse d'une tablette).
+ * Les tâches d'une même clé sont exécutées une à une, dans leur ordre de soumission, comme avec un {@link QueueThread}. Les tâches de clés différentes sont exécutées en parallèle par un pool borné de threads.
+ * Aucun thread n'est réservé à une clé : une clé sans tâche en attente ne coûte rien.
+ * @param <K> Le type des clés.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class KeyedQueueThread<K> extends PoolThread {
+    
+    
+    
+//ATTRIBUT
+    /**
+     * La dernière tâche soumise pour chaque clé qui a encore des tâches en attente ou en cours.
+     */
+    private final java.util.Map<K, java.util.concurrent.CompletableFuture<?>> tails;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur qui initialise les files d'attente.
+     * @param name Le préfixe du nom des threads.
+     * @param workers Le nombre maximum de clés traitées en parallèle (au moins 1).
+     */
+    public KeyedQueueThread(String name, int workers) {
+        super(name, workers);
+        this.tails = new java.util.HashMap<>();
+    }
+    
+    
+    
+//METHODES PUBLICS
+    /**
+     * Exécute une tâche asynchrone après toutes les tâches déjà soumises pour la même clé.
+     * L'échec d'une tâche n'empêche pas l'exécution des tâches suivantes de la même clé.
+     * @param key La clé de la file d'attente.
+     * @param task La tâche à exécuter.
+     * @param <T> Le type de résultat de la tâche.
+     * @return Un CompletableFuture représentant le résultat potentiel de l'exécution.
+     */
+    public <T> java.util.concurrent.CompletableFuture<T> execute(K key, java.util.concurrent.Callable<T> task) {
+        java.util.concurrent.CompletableFuture<T> next;
+        synchronized (this.tails) {
+            java.util.concurrent.CompletableFuture<?> previous = this.tails.get(key);
+            if (previous == null)
+                previous = java.util.concurrent.CompletableFuture.completedFuture(null);
+            next = observe(previous.handleAsync((Object result, Throwable ex) -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    throw new java.util.concurrent.CompletionException(e);
+                }
+            }, asExecutor()));
+            this.tails.put(key, next);
+        }
+        java.util.concurrent.CompletableFuture<T> tail = next;
+        tail.whenComplete((T result, Throwable ex) -> {
+            synchronized (this.tails) {
+                this.tails.remove(key, tail);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Exécute une tâche asynchrone après toutes les tâches déjà soumises pour la même clé.
+     * @param key La clé de la file d'attente.
+     * @param task La tâche à exécuter.
+     * @return Un CompletableFuture représentant l'exécution de la tâche.
+     */
+    public java.util.concurrent.CompletableFuture<Void> execute(K key, Runnable task) {
+        return execute(key, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Renvoie le nombre de clés qui ont encore des tâches en attente ou en cours.
+     * @return Le nombre de clés actives.
+     */
+    public int getActiveKeys() {
+        synchronized (this.tails) {
+            return this.tails.size();
+        }
+    }
+
+
+
+}
\ No newline at end of file
@@ -56,6 +56,14 @@ public class MET {
     public static java.util.concurrent.Future<?> execute(Runnable task) {
         return EXECUTOR.execute(task);
     }
+    
+    /**
+     * Renvoie un relevé des métriques de la file du MET (profondeur, temps d'attente et d'exécution des tâches...).
+     * @return Un relevé des métriques de la file du MET.
+     */
+    public static QueueThread.Metrics getMetrics() {
+        return EXECUTOR.getMetrics();
+    }
 
     
     
@@ -0,0 +1,384 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe utilitaire qui ré-encode une image PNG sans perte afin de réduire sa taille.
+ * Le type de couleur le plus compact permis par les pixels est choisi (gris sur 1, 2, 4 ou 8 bits, palette, gris + alpha, RGB ou RGBA), le filtre de chaque ligne est choisi pour minimiser la somme des écarts et les données sont compressées au niveau maximum.
+ * Seuls les pixels sont conservés : les chunks annexes (gamma, profil ICC, textes...) sont supprimés. L'image d'origine est renvoyée telle quelle si elle ne peut pas être ré-encodée sans perte ou si le résultat n'est pas plus petit.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class PngOptimizer {
+    
+    
+    
+//CONSTANTES
+    /**
+     * Correspond à la signature qui débute tout fichier PNG
+     */
+    private final static byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * Correspond au type de couleur PNG gris
+     */
+    private final static int GRAY = 0;
+
+    /**
+     * Correspond au type de couleur PNG RGB
+     */
+    private final static int RGB = 2;
+
+    /**
+     * Correspond au type de couleur PNG palette
+     */
+    private final static int PALETTE = 3;
+
+    /**
+     * Correspond au type de couleur PNG gris + alpha
+     */
+    private final static int GRAY_ALPHA = 4;
+
+    /**
+     * Correspond au type de couleur PNG RGBA
+     */
+    private final static int RGBA = 6;
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private PngOptimizer() {
+
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Ré-encode sans perte une image PNG sous sa forme la plus compacte.
+     *
+     * @param datas Les données de l'image PNG.
+     * @return Les données de l'image ré-encodée, ou les données d'origine si l'image n'a pas pu être réduite.
+     */
+    public static byte[] optimize(byte[] datas) {
+        try {
+            java.awt.image.BufferedImage image = javax.imageio.ImageIO.read(new java.io.ByteArrayInputStream(datas));
+            if (image == null)
+                return datas;
+            int[] argb = pixels(image);
+            if (argb == null)
+                return datas;
+            byte[] optimized = encode(image.getWidth(), image.getHeight(), argb);
+            return optimized.length < datas.length ? optimized : datas;
+        } catch (java.io.IOException | RuntimeException ex) {
+            return datas;
+        }
+    }
+
+    /**
+     * Encode des pixels ARGB en PNG sous la forme la plus compacte qui les conserve à l'identique.
+     *
+     * @param width La largeur de l'image.
+     * @param height La hauteur de l'image.
+     * @param argb Les pixels de l'image au format ARGB non prémultiplié, ligne par ligne.
+     * @return Les données de l'image PNG.
+     */
+    public static byte[] encode(int width, int height, int[] argb) {
+        boolean gray   = true;
+        boolean opaque = true;
+        java.util.Map<Integer, Integer> colors = new java.util.LinkedHashMap<>();
+        for (int pixel : argb) {
+            int a = pixel >>> 24, r = (pixel >> 16) & 0xFF, g = (pixel >> 8) & 0xFF, b = pixel & 0xFF;
+            gray   &= r == g && g == b;
+            opaque &= a == 0xFF;
+            if (colors != null && !colors.containsKey(pixel)) {
+                if (colors.size() == 256)
+                    colors = null;
+                else
+                    colors.put(pixel, colors.size());
+            }
+        }
+
+        int colorType;
+        int bitDepth = 8;
+        if (gray && opaque) {
+            colorType = GRAY;
+            bitDepth  = grayDepth(argb);
+        } else if (colors != null) {
+            colorType = PALETTE;
+            bitDepth  = colors.size() <= 2 ? 1 : colors.size() <= 4 ? 2 : colors.size() <= 16 ? 4 : 8;
+        } else if (gray) {
+            colorType = GRAY_ALPHA;
+        } else {
+            colorType = opaque ? RGB : RGBA;
+        }
+
+        java.io.ByteArrayOutputStream png = new java.io.ByteArrayOutputStream(argb.length / 2);
+        png.write(PNG_SIGNATURE, 0, PNG_SIGNATURE.length);
+        java.nio.ByteBuffer ihdr = java.nio.ByteBuffer.allocate(13).putInt(width).putInt(height).put((byte) bitDepth).put((byte) colorType).put((byte) 0).put((byte) 0).put((byte) 0);
+        writeChunk(png, "IHDR", ihdr.array());
+        if (colorType == PALETTE) {
+            byte[] plte = new byte[colors.size() * 3];
+            byte[] trns = new byte[colors.size()];
+            int lastTranslucent = -1;
+            for (java.util.Map.Entry<Integer, Integer> color : colors.entrySet()) {
+                int pixel = color.getKey(), index = color.getValue();
+                plte[index * 3]     = (byte) (pixel >> 16);
+                plte[index * 3 + 1] = (byte) (pixel >> 8);
+                plte[index * 3 + 2] = (byte) pixel;
+                trns[index]         = (byte) (pixel >>> 24);
+                if (pixel >>> 24 != 0xFF)
+                    lastTranslucent = index;
+            }
+            writeChunk(png, "PLTE", plte);
+            if (lastTranslucent >= 0)
+                writeChunk(png, "tRNS", java.util.Arrays.copyOf(trns, lastTranslucent + 1));
+        }
+        writeChunk(png, "IDAT", compress(width, height, argb, colorType, bitDepth, colors));
+        writeChunk(png, "IEND", new byte[0]);
+        return png.toByteArray();
+    }
+    
+    
+    
+//METHODES PRIVATES STATICS
+    /**
+     * Extrait les pixels d'une image décodée au format ARGB, sans aucune conversion d'espace colorimétrique.
+     *
+     * @param image L'image décodée.
+     * @return Les pixels de l'image ligne par ligne, ou null si l'image a plus de 8 bits par composante (une réduction serait alors destructive).
+     */
+    private static int[] pixels(java.awt.image.BufferedImage image) {
+        int width  = image.getWidth();
+        int height = image.getHeight();
+        java.awt.image.ColorModel cm = image.getColorModel();
+        for (int size : cm.getComponentSize()) {
+            if (size > 8)
+                return null;
+        }
+        if (cm instanceof java.awt.image.IndexColorModel)
+            return image.getRGB(0, 0, width, height, null, 0, width);
+        if (!(cm instanceof java.awt.image.ComponentColorModel) || cm.isAlphaPremultiplied())
+            return null;
+
+        //Lecture directe des échantillons : getRGB convertirait les gris linéaires de Java2D et perdrait les valeurs d'origine
+        java.awt.image.Raster raster = image.getRaster();
+        int bands = raster.getNumBands();
+        int[] row = new int[width * bands];
+        int[] argb = new int[width * height];
+        for (int y = 0; y < height; y++) {
+            raster.getPixels(0, y, width, 1, row);
+            for (int x = 0, i = 0; x < width; x++, i += bands) {
+                int pixel;
+                switch (bands) {
+                    case 1:
+                        pixel = 0xFF000000 | row[i] * 0x010101;
+                        break;
+                    case 2:
+                        pixel = row[i + 1] << 24 | row[i] * 0x010101;
+                        break;
+                    case 3:
+                        pixel = 0xFF000000 | row[i] << 16 | row[i + 1] << 8 | row[i + 2];
+                        break;
+                    case 4:
+                        pixel = row[i + 3] << 24 | row[i] << 16 | row[i + 1] << 8 | row[i + 2];
+                        break;
+                    default:
+                        return null;
+                }
+                argb[y * width + x] = pixel;
+            }
+        }
+        return argb;
+    }
+
+    /**
+     * Détermine la plus petite profondeur de gris qui représente exactement tous les niveaux de gris de l'image (les écrans e-ink n'affichent que 16 niveaux).
+     *
+     * @param argb Les pixels gris et opaques de l'image.
+     * @return La profondeur de gris (1, 2, 4 ou 8 bits).
+     */
+    private static int grayDepth(int[] argb) {
+        boolean d1 = true, d2 = true, d4 = true;
+        for (int pixel : argb) {
+            int v = pixel & 0xFF;
+            d1 &= v % 255 == 0;
+            d2 &= v % 85 == 0;
+            d4 &= v % 17 == 0;
+            if (!d4)
+                return 8;
+        }
+        return d1 ? 1 : d2 ? 2 : 4;
+    }
+
+    /**
+     * Filtre et compresse les lignes de l'image (contenu du chunk IDAT).
+     *
+     * @param width La largeur de l'image.
+     * @param height La hauteur de l'image.
+     * @param argb Les pixels de l'image.
+     * @param colorType Le type de couleur PNG choisi.
+     * @param bitDepth La profondeur choisie.
+     * @param colors L'index de chaque couleur dans la palette (uniquement pour le type palette).
+     * @return Les données compressées.
+     */
+    private static byte[] compress(int width, int height, int[] argb, int colorType, int bitDepth, java.util.Map<Integer, Integer> colors) {
+        int channels = colorType == RGBA ? 4 : colorType == RGB ? 3 : colorType == GRAY_ALPHA ? 2 : 1;
+        int bpp      = Math.max(1, channels * bitDepth / 8);
+        int rowBytes = (width * channels * bitDepth + 7) / 8;
+        byte[] prev  = new byte[rowBytes];
+        byte[] cur   = new byte[rowBytes];
+        byte[][] filtered = new byte[5][rowBytes + 1];
+
+        java.util.zip.Deflater deflater = new java.util.zip.Deflater(java.util.zip.Deflater.BEST_COMPRESSION);
+        java.io.ByteArrayOutputStream idat = new java.io.ByteArrayOutputStream();
+        try (java.util.zip.DeflaterOutputStream dos = new java.util.zip.DeflaterOutputStream(idat, deflater, 65536)) {
+            for (int y = 0; y < height; y++) {
+                java.util.Arrays.fill(cur, (byte) 0);
+                int offset = y * width;
+                for (int x = 0; x < width; x++) {
+                    int pixel = argb[offset + x];
+                    switch (colorType) {
+                        case GRAY:
+                            pack(cur, x, (pixel & 0xFF) >> (8 - bitDepth), bitDepth);
+                            break;
+                        case PALETTE:
+                            pack(cur, x, colors.get(pixel), bitDepth);
+                            break;
+                        case GRAY_ALPHA:
+                            cur[x * 2]     = (byte) pixel;
+                            cur[x * 2 + 1] = (byte) (pixel >>> 24);
+                            break;
+                        case RGB:
+                            cur[x * 3]     = (byte) (pixel >> 16);
+                            cur[x * 3 + 1] = (byte) (pixel >> 8);
+                            cur[x * 3 + 2] = (byte) pixel;
+                            break;
+                        default:
+                            cur[x * 4]     = (byte) (pixel >> 16);
+                            cur[x * 4 + 1] = (byte) (pixel >> 8);
+                            cur[x * 4 + 2] = (byte) pixel;
+                            cur[x * 4 + 3] = (byte) (pixel >>> 24);
+                            break;
+                    }
+                }
+
+                //Les images en palette ou de moins de 8 bits se compressent mieux sans filtre (recommandation de la norme PNG)
+                int best = 0;
+                filter(cur, prev, bpp, 0, filtered[0]);
+                if (colorType != PALETTE && bitDepth == 8) {
+                    long bestSum = Long.MAX_VALUE;
+                    for (int type = 0; type < 5; type++) {
+                        long sum = filter(cur, prev, bpp, type, filtered[type]);
+                        if (sum < bestSum) {
+                            bestSum = sum;
+                            best    = type;
+                        }
+                    }
+                }
+                dos.write(filtered[best]);
+
+                byte[] tmp = prev;
+                prev = cur;
+                cur  = tmp;
+            }
+        } catch (java.io.IOException ex) {
+            throw new java.io.UncheckedIOException(ex);
+        } finally {
+            deflater.end();
+        }
+        return idat.toByteArray();
+    }
+
+    /**
+     * Range un échantillon de moins de 8 bits dans une ligne (bits de poids fort en premier).
+     *
+     * @param row La ligne.
+     * @param x L'index du pixel.
+     * @param value La valeur de l'échantillon.
+     * @param bitDepth La profondeur de l'échantillon.
+     */
+    private static void pack(byte[] row, int x, int value, int bitDepth) {
+        if (bitDepth == 8) {
+            row[x] = (byte) value;
+        } else {
+            int bit = x * bitDepth;
+            row[bit >> 3] |= value << (8 - bitDepth - (bit & 7));
+        }
+    }
+
+    /**
+     * Applique un filtre PNG à une ligne.
+     *
+     * @param cur La ligne à filtrer.
+     * @param prev La ligne précédente (que des zéros pour la première ligne).
+     * @param bpp Le nombre d'octets par pixel (au moins 1).
+     * @param type Le type de filtre (0 = None, 1 = Sub, 2 = Up, 3 = Average, 4 = Paeth).
+     * @param out La ligne filtrée, précédée de son type de filtre.
+     * @return La somme des valeurs absolues (signées) de la ligne filtrée, utilisée pour choisir le meilleur filtre.
+     */
+    private static long filter(byte[] cur, byte[] prev, int bpp, int type, byte[] out) {
+        out[0] = (byte) type;
+        long sum = 0;
+        for (int i = 0; i < cur.length; i++) {
+            int x = cur[i] & 0xFF;
+            int a = i >= bpp ? cur[i - bpp] & 0xFF : 0;
+            int b = prev[i] & 0xFF;
+            int c = i >= bpp ? prev[i - bpp] & 0xFF : 0;
+            int value;
+            switch (type) {
+                case 1:
+                    value = x - a;
+                    break;
+                case 2:
+                    value = x - b;
+                    break;
+                case 3:
+                    value = x - ((a + b) >> 1);
+                    break;
+                case 4:
+                    int p = a + b - c, pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+                    value = x - (pa <= pb && pa <= pc ? a : pb <= pc ? b : c);
+                    break;
+                default:
+                    value = x;
+                    break;
+            }
+            out[i + 1] = (byte) value;
+            sum += Math.abs((byte) value);
+        }
+        return sum;
+    }
+
+    /**
+     * Écrit un chunk PNG (longueur, type, données et CRC).
+     *
+     * @param png Le flux de l'image PNG.
+     * @param type Le type du chunk.
+     * @param datas Les données du chunk.
+     */
+    private static void writeChunk(java.io.ByteArrayOutputStream png, String type, byte[] datas) {
+        byte[] name = type.getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+        java.util.zip.CRC32 crc = new java.util.zip.CRC32();
+        crc.update(name);
+        crc.update(datas);
+        png.writeBytes(java.nio.ByteBuffer.allocate(4).putInt(datas.length).array());
+        png.writeBytes(name);
+        png.writeBytes(datas);
+        png.writeBytes(java.nio.ByteBuffer.allocate(4).putInt((int) crc.getValue()).array());
+    }
+
+
+
+}
\ No newline at end of file
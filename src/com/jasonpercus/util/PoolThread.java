@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe pour la gestion d'une file d'attente de tâches exécutées par un nombre borné de threads.
+ * Contrairement à {@link QueueThread}, plusieurs tâches peuvent s'exécuter en même temps : l'ordre d'exécution n'est donc pas garanti.
+ * Lorsque la file d'attente est pleine, la tâche soumise est exécutée par le thread qui la soumet, ce qui ralentit naturellement le producteur (voir {@link #getSaturated()}).
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class PoolThread extends QueueThread {
+    
+    
+    
+//ATTRIBUT
+    /**
+     * Le nombre maximum de threads du pool.
+     */
+    private final int workers;
+    
+    
+    
+//CONSTRUCTORS
+    /**
+     * Constructeur qui initialise un pool dont la file d'attente n'est pas bornée.
+     * @param name Le préfixe du nom des threads.
+     * @param workers Le nombre maximum de threads du pool (au moins 1).
+     */
+    public PoolThread(String name, int workers) {
+        this(name, workers, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Constructeur qui initialise le pool.
+     * @param name Le préfixe du nom des threads.
+     * @param workers Le nombre maximum de threads du pool (au moins 1).
+     * @param capacity Le nombre maximum de tâches en attente (au moins 1).
+     */
+    public PoolThread(String name, int workers, int capacity) {
+        this(name, create(name, Math.max(1, workers), Math.max(1, capacity)));
+    }
+
+    /**
+     * Constructeur privé qui reçoit le pool créé. Une tâche refusée faute de place est exécutée par le thread qui la soumet, et comptée comme telle dans les métriques ; une tâche soumise après l'arrêt du pool est refusée.
+     * @param name Le préfixe du nom des threads.
+     * @param pool Le pool qui exécutera les tâches.
+     */
+    private PoolThread(String name, java.util.concurrent.ThreadPoolExecutor pool) {
+        super(name, pool);
+        this.workers = pool.getMaximumPoolSize();
+        pool.setRejectedExecutionHandler((Runnable r, java.util.concurrent.ThreadPoolExecutor e) -> {
+            if (e.isShutdown())
+                throw new java.util.concurrent.RejectedExecutionException(name + " is shut down !");
+            saturated();
+            r.run();
+        });
+    }
+    
+    
+    
+//GETTER
+    /**
+     * Renvoie le nombre maximum de threads du pool.
+     * @return Le nombre maximum de threads du pool.
+     */
+    public int getWorkers() {
+        return this.workers;
+    }
+    
+    
+    
+//METHODE PRIVATE STATIC
+    /**
+     * Crée le pool. Les threads sont des threads démons qui s'arrêtent après une minute d'inactivité.
+     * @param name Le préfixe du nom des threads.
+     * @param workers Le nombre maximum de threads du pool.
+     * @param capacity Le nombre maximum de tâches en attente.
+     * @return Le pool.
+     */
+    private static java.util.concurrent.ThreadPoolExecutor create(String name, int workers, int capacity) {
+        java.util.concurrent.atomic.AtomicInteger count = new java.util.concurrent.atomic.AtomicInteger();
+        java.util.concurrent.ThreadPoolExecutor executor = new java.util.concurrent.ThreadPoolExecutor(workers, workers, 60, java.util.concurrent.TimeUnit.SECONDS, new java.util.concurrent.LinkedBlockingQueue<>(capacity), (Runnable r) -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+
+
+}
\ No newline at end of file
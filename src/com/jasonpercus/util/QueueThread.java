@@ -12,18 +12,83 @@ package com.jasonpercus.util;
 
 /**
  * Classe pour la gestion d'une file d'attente de tâches exécutées par un thread unique.
+ * Les tâches sont exécutées une à une, dans leur ordre de soumission. Les sous-classes ({@link PoolThread}, {@link VirtualThread}, {@link KeyedQueueThread}) reposent sur d'autres exécuteurs lorsque cet ordre n'est pas nécessaire.
+ * Chaque file mesure sa profondeur, le temps d'attente et le temps d'exécution de ses tâches ainsi que le nombre de tâches en échec ou refusées. Ces métriques sont consultables par {@link #getMetrics()} et publiées par JMX (voir {@link QueueThreadMXBean}).
  * @author JasonPercus
  * @version 1.0
  */
-public class QueueThread {
-
+public class QueueThread implements QueueThreadMXBean {
+    
+    
+    
+//CONSTANTE
+    /**
+     * Les files en service, indexées par leur nom unique.
+     */
+    private final static java.util.Map<String, QueueThread> INSTANCES = new java.util.concurrent.ConcurrentHashMap<>();
     
     
-//ATTRIBUT
+    
+//ATTRIBUTS
     /**
      * ExecutorService pour exécuter les tâches dans un thread dédié.
      */
     private final java.util.concurrent.ExecutorService executor;
+
+    /**
+     * Le nom unique de la file (suffixé d'un numéro lorsque plusieurs files portent le même nom).
+     */
+    private final String name;
+
+    /**
+     * Le nombre de tâches en attente d'exécution.
+     */
+    private final java.util.concurrent.atomic.LongAdder pending;
+
+    /**
+     * Le nombre de tâches en cours d'exécution.
+     */
+    private final java.util.concurrent.atomic.LongAdder running;
+
+    /**
+     * Le nombre de tâches acceptées par la file.
+     */
+    private final java.util.concurrent.atomic.LongAdder submitted;
+
+    /**
+     * Le nombre de tâches terminées.
+     */
+    private final java.util.concurrent.atomic.LongAdder completed;
+
+    /**
+     * Le nombre de tâches terminées par une exception.
+     */
+    private final java.util.concurrent.atomic.LongAdder failed;
+
+    /**
+     * Le nombre de tâches refusées par la file.
+     */
+    private final java.util.concurrent.atomic.LongAdder rejected;
+
+    /**
+     * Le nombre de tâches exécutées par le thread qui les soumet, faute de place dans la file.
+     */
+    private final java.util.concurrent.atomic.LongAdder saturated;
+
+    /**
+     * La distribution des temps d'attente des tâches avant leur exécution.
+     */
+    private final Histogram waitTime;
+
+    /**
+     * La distribution des temps d'exécution des tâches.
+     */
+    private final Histogram runTime;
+
+    /**
+     * Le shutdown hook qui arrête la file à la fermeture de l'application (retiré lorsque la file est arrêtée).
+     */
+    private final Thread hook;
     
     
     
@@ -42,15 +107,172 @@ public class QueueThread {
      * @param priority La priorité du thread.
      */
     public QueueThread(String name, int priority) {
-        this.executor = java.util.concurrent.Executors.newSingleThreadExecutor((Runnable r) -> {
+        this(name, java.util.concurrent.Executors.newSingleThreadExecutor((Runnable r) -> {
             Thread thread = new Thread(r, name);
             thread.setDaemon(true);
             thread.setPriority(priority);
             return thread;
-        });
-        
+        }));
+    }
+
+    /**
+     * Constructeur utilisé par les sous-classes pour exécuter les tâches sur un autre ExecutorService.
+     * @param name Le nom de la file (sous lequel ses métriques sont publiées).
+     * @param executor L'ExecutorService qui exécutera les tâches.
+     */
+    protected QueueThread(String name, java.util.concurrent.ExecutorService executor) {
+        this.executor  = executor;
+        this.pending   = new java.util.concurrent.atomic.LongAdder();
+        this.running   = new java.util.concurrent.atomic.LongAdder();
+        this.submitted = new java.util.concurrent.atomic.LongAdder();
+        this.completed = new java.util.concurrent.atomic.LongAdder();
+        this.failed    = new java.util.concurrent.atomic.LongAdder();
+        this.rejected  = new java.util.concurrent.atomic.LongAdder();
+        this.saturated = new java.util.concurrent.atomic.LongAdder();
+        this.waitTime  = new Histogram();
+        this.runTime   = new Histogram();
+        this.name      = register(name, this);
+        this.hook      = new Thread(executor::shutdownNow);
+
         // Ajouter un shutdown hook pour fermer le thread personnalisé à la fermeture de l'application
-        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdownNow));
+        Runtime.getRuntime().addShutdownHook(this.hook);
+    }
+    
+    
+    
+//GETTERS
+    /**
+     * Renvoie le nom unique de la file.
+     * @return Le nom unique de la file.
+     */
+    @Override
+    public String getName() {
+        return this.name;
+    }
+
+    /**
+     * Renvoie le nombre de tâches en attente d'exécution.
+     * @return Le nombre de tâches en attente.
+     */
+    @Override
+    public long getQueueDepth() {
+        return Math.max(0, this.pending.sum());
+    }
+
+    /**
+     * Renvoie le nombre de tâches en cours d'exécution.
+     * @return Le nombre de tâches en cours.
+     */
+    @Override
+    public long getRunning() {
+        return Math.max(0, this.running.sum());
+    }
+
+    /**
+     * Renvoie le nombre de tâches acceptées par la file.
+     * @return Le nombre de tâches acceptées.
+     */
+    @Override
+    public long getSubmitted() {
+        return this.submitted.sum();
+    }
+
+    /**
+     * Renvoie le nombre de tâches terminées (avec ou sans erreur).
+     * @return Le nombre de tâches terminées.
+     */
+    @Override
+    public long getCompleted() {
+        return this.completed.sum();
+    }
+
+    /**
+     * Renvoie le nombre de tâches terminées par une exception.
+     * @return Le nombre de tâches en échec.
+     */
+    @Override
+    public long getFailed() {
+        return this.failed.sum();
+    }
+
+    /**
+     * Renvoie le nombre de tâches refusées par la file (file arrêtée).
+     * @return Le nombre de tâches refusées.
+     */
+    @Override
+    public long getRejected() {
+        return this.rejected.sum();
+    }
+
+    /**
+     * Renvoie le nombre de tâches exécutées directement par le thread qui les soumet, faute de place dans la file.
+     * @return Le nombre de tâches exécutées par le thread appelant.
+     */
+    @Override
+    public long getSaturated() {
+        return this.saturated.sum();
+    }
+
+    /**
+     * Renvoie le temps d'attente moyen des tâches avant leur exécution.
+     * @return Le temps d'attente moyen (en millisecondes).
+     */
+    @Override
+    public double getWaitTimeMean() {
+        return this.waitTime.getMean() / 1e6;
+    }
+
+    /**
+     * Renvoie le 99e percentile du temps d'attente des tâches avant leur exécution.
+     * @return Le 99e percentile du temps d'attente (en millisecondes).
+     */
+    @Override
+    public double getWaitTime99thPercentile() {
+        return this.waitTime.getPercentile(99) / 1e6;
+    }
+
+    /**
+     * Renvoie le plus long temps d'attente d'une tâche avant son exécution.
+     * @return Le plus long temps d'attente (en millisecondes).
+     */
+    @Override
+    public double getWaitTimeMax() {
+        return this.waitTime.getMax() / 1e6;
+    }
+
+    /**
+     * Renvoie le temps d'exécution moyen des tâches.
+     * @return Le temps d'exécution moyen (en millisecondes).
+     */
+    @Override
+    public double getRunTimeMean() {
+        return this.runTime.getMean() / 1e6;
+    }
+
+    /**
+     * Renvoie le 99e percentile du temps d'exécution des tâches.
+     * @return Le 99e percentile du temps d'exécution (en millisecondes).
+     */
+    @Override
+    public double getRunTime99thPercentile() {
+        return this.runTime.getPercentile(99) / 1e6;
+    }
+
+    /**
+     * Renvoie le plus long temps d'exécution d'une tâche.
+     * @return Le plus long temps d'exécution (en millisecondes).
+     */
+    @Override
+    public double getRunTimeMax() {
+        return this.runTime.getMax() / 1e6;
+    }
+
+    /**
+     * Renvoie un relevé des métriques de la file.
+     * @return Un relevé des métriques de la file à l'instant présent.
+     */
+    public Metrics getMetrics() {
+        return new Metrics(this);
     }
     
     
@@ -63,33 +285,453 @@ public class QueueThread {
      * @return Un Future représentant le résultat potentiel de l'exécution.
      */
     public <T> java.util.concurrent.Future<T> execute(java.util.concurrent.Callable<T> task) {
-        return executor.submit(task);
+        TrackedTask<T> tracked = track(task);
+        try {
+            executor.execute(tracked);
+            return tracked;
+        } catch (java.util.concurrent.RejectedExecutionException ex) {
+            reject();
+            throw ex;
+        }
     }
-    
+
     /**
      * Exécute une tâche asynchrone et renvoie un Future représentant le résultat potentiel de l'exécution.
      * @param task La tâche à exécuter.
      * @return Un Future représentant le résultat potentiel de l'exécution.
      */
     public java.util.concurrent.Future<?> execute(Runnable task) {
-        return executor.submit(task);
+        return execute(java.util.concurrent.Executors.callable(task));
     }
-    
+
+    /**
+     * Renvoie un Executor qui soumet ses tâches à cette file, par exemple pour y enchaîner les étapes d'un {@link java.util.concurrent.CompletableFuture}.
+     * Un CompletableFuture capture l'exception de son étape au lieu de la laisser remonter à l'Executor : pour qu'elle soit comptée parmi les tâches en échec, le CompletableFuture de l'étape doit être passé à {@link #observe(java.util.concurrent.CompletableFuture)}.
+     * @return Un Executor qui délègue à cette file.
+     */
+    public java.util.concurrent.Executor asExecutor() {
+        return (Runnable task) -> {
+            TrackedTask<Object> tracked = track(java.util.concurrent.Executors.callable(task));
+            try {
+                executor.execute(tracked);
+            } catch (java.util.concurrent.RejectedExecutionException ex) {
+                reject();
+                throw ex;
+            }
+        };
+    }
+
+    /**
+     * Compte parmi les tâches en échec un CompletableFuture dont l'étape, exécutée sur cette file (voir {@link #asExecutor()}), se termine par une exception. Une annulation n'est pas comptée comme un échec.
+     * @param future Le CompletableFuture de l'étape.
+     * @param <T> Le type de résultat de l'étape.
+     * @return Le CompletableFuture de l'étape.
+     */
+    public <T> java.util.concurrent.CompletableFuture<T> observe(java.util.concurrent.CompletableFuture<T> future) {
+        future.whenComplete((T result, Throwable ex) -> {
+            if (ex != null && !(ex instanceof java.util.concurrent.CancellationException))
+                this.failed.increment();
+        });
+        return future;
+    }
+
     /**
      * Demande la fermeture de l'ExecutorService après l'achèvement de toutes les tâches en cours.
      */
     public void shutdown() {
+        unregister(this.name, this);
+        removeHook();
         executor.shutdown();
     }
-    
+
     /**
      * Tentative d'arrêt en douceur de l'ExecutorService, interrompant immédiatement toutes les tâches en attente et renvoyant une liste des tâches qui n'ont pas été exécutées.
+     * Ces tâches ne sont plus comptées parmi les tâches en attente.
      * @return La liste des tâches en attente qui n'ont pas été exécutées.
      */
     public java.util.List<Runnable> shutdownNow() {
-        return executor.shutdownNow();
+        unregister(this.name, this);
+        removeHook();
+        java.util.List<Runnable> drained = executor.shutdownNow();
+        for (Runnable task : drained) {
+            if (task instanceof TrackedTask)
+                ((TrackedTask<?>) task).discard();
+        }
+        return drained;
+    }
+    
+    
+    
+//METHODE PUBLIC STATIC
+    /**
+     * Renvoie un relevé des métriques de toutes les files en service (y compris celle du {@link MET}).
+     * @return Les relevés des métriques de chaque file, triés par nom.
+     */
+    public static java.util.List<Metrics> getAllMetrics() {
+        java.util.List<Metrics> metrics = new java.util.ArrayList<>();
+        for (QueueThread queue : INSTANCES.values())
+            metrics.add(queue.getMetrics());
+        metrics.sort(java.util.Comparator.comparing(Metrics::getName));
+        return metrics;
+    }
+    
+    
+    
+//METHODE PROTECTED
+    /**
+     * Signale qu'une tâche va être exécutée par le thread qui la soumet, faute de place dans la file.
+     */
+    protected void saturated() {
+        this.saturated.increment();
+    }
+    
+    
+    
+//METHODES PRIVATES
+    /**
+     * Enveloppe une tâche pour mesurer son temps d'attente et son temps d'exécution.
+     * @param task La tâche à mesurer.
+     * @param <T> Le type de résultat de la tâche.
+     * @return La tâche enveloppée.
+     */
+    private <T> TrackedTask<T> track(java.util.concurrent.Callable<T> task) {
+        long queued = System.nanoTime();
+        java.util.concurrent.atomic.AtomicBoolean dequeued = new java.util.concurrent.atomic.AtomicBoolean();
+        this.pending.increment();
+        this.submitted.increment();
+        return new TrackedTask<>(() -> {
+            // La tâche a été annulée ou retirée de la file entre-temps
+            if (!dequeued.compareAndSet(false, true))
+                return null;
+            long started = System.nanoTime();
+            this.pending.decrement();
+            this.running.increment();
+            this.waitTime.record(started - queued);
+            boolean success = false;
+            try {
+                T result = task.call();
+                success = true;
+                return result;
+            } finally {
+                this.runTime.record(System.nanoTime() - started);
+                this.running.decrement();
+                this.completed.increment();
+                if (!success)
+                    this.failed.increment();
+            }
+        }, dequeued);
+    }
+
+    /**
+     * Annule la comptabilisation d'une tâche que l'ExecutorService a refusée.
+     */
+    private void reject() {
+        this.pending.decrement();
+        this.submitted.decrement();
+        this.rejected.increment();
+    }
+
+    /**
+     * Retire le shutdown hook de la file, devenu inutile une fois la file arrêtée.
+     */
+    private void removeHook() {
+        try {
+            Runtime.getRuntime().removeShutdownHook(this.hook);
+        } catch (IllegalStateException ex) {
+            // La JVM est déjà en cours d'arrêt
+        }
+    }
+    
+    
+    
+//METHODES PRIVATES STATICS
+    /**
+     * Enregistre une file dans la liste des files en service et publie ses métriques par JMX.
+     * @param name Le nom souhaité pour la file.
+     * @param queue La file à enregistrer.
+     * @return Le nom unique de la file (suffixé d'un numéro si le nom est déjà pris).
+     */
+    private static String register(String name, QueueThread queue) {
+        String unique = name;
+        for (int i = 2; INSTANCES.putIfAbsent(unique, queue) != null; i++)
+            unique = name + " #" + i;
+        try {
+            java.lang.management.ManagementFactory.getPlatformMBeanServer().registerMBean(new javax.management.StandardMBean(queue, QueueThreadMXBean.class, true), objectName(unique));
+        } catch (javax.management.JMException | RuntimeException ex) {
+            // Les métriques restent consultables par getMetrics()
+        }
+        return unique;
+    }
+
+    /**
+     * Retire une file de la liste des files en service et de JMX.
+     * @param name Le nom unique de la file.
+     * @param queue La file à retirer.
+     */
+    private static void unregister(String name, QueueThread queue) {
+        if (INSTANCES.remove(name, queue)) {
+            try {
+                java.lang.management.ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName(name));
+            } catch (javax.management.JMException | RuntimeException ex) {
+                // La file n'était pas publiée par JMX
+            }
+        }
+    }
+
+    /**
+     * Renvoie le nom JMX d'une file.
+     * @param name Le nom unique de la file.
+     * @return Le nom JMX de la file.
+     * @throws javax.management.MalformedObjectNameException Si le nom JMX est invalide.
+     */
+    private static javax.management.ObjectName objectName(String name) throws javax.management.MalformedObjectNameException {
+        return new javax.management.ObjectName("com.jasonpercus.util:type=QueueThread,name=" + javax.management.ObjectName.quote(name));
+    }
+    
+    
+    
+//CLASS
+    /**
+     * Cette classe représente une tâche soumise à la file. Une tâche annulée avant son exécution, ou retirée de la file par {@link QueueThread#shutdownNow()}, n'est plus comptée parmi les tâches en attente.
+     * @param <T> Le type de résultat de la tâche.
+     * @author JasonPercus
+     * @version 1.0
+     */
+    private class TrackedTask<T> extends java.util.concurrent.FutureTask<T> {
+    
+    
+    
+    //ATTRIBUT
+        /**
+         * Vaut true dès que la tâche a quitté la file (exécutée, annulée ou retirée).
+         */
+        private final java.util.concurrent.atomic.AtomicBoolean dequeued;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée une tâche soumise à la file.
+         * @param task La tâche enveloppée par {@link QueueThread#track(java.util.concurrent.Callable)}.
+         * @param dequeued Vaut true dès que la tâche a quitté la file.
+         */
+        private TrackedTask(java.util.concurrent.Callable<T> task, java.util.concurrent.atomic.AtomicBoolean dequeued) {
+            super(task);
+            this.dequeued = dequeued;
+        }
+    
+    
+    
+    //METHODE PUBLIC
+        /**
+         * Annule la tâche. Si elle n'a pas encore commencé, elle n'est plus comptée parmi les tâches en attente.
+         * @param mayInterruptIfRunning true si le thread qui exécute la tâche doit être interrompu.
+         * @return false si la tâche ne peut pas être annulée (généralement parce qu'elle est déjà terminée), sinon true.
+         */
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled)
+                discard();
+            return cancelled;
+        }
+    
+    
+    
+    //METHODE PRIVATE
+        /**
+         * Retire la tâche des tâches en attente si elle n'a pas encore commencé.
+         */
+        private void discard() {
+            if (this.dequeued.compareAndSet(false, true))
+                pending.decrement();
+        }
+    
+    
+    
     }
+    
+    
+    
+    /**
+     * Cette classe représente un relevé des métriques d'une {@link QueueThread} à un instant donné.
+     * @author JasonPercus
+     * @version 1.0
+     */
+    public static class Metrics {
+    
+    
+    
+    //ATTRIBUTS
+        /**
+         * Le nom de la file.
+         */
+        private final String name;
+
+        /**
+         * Le nombre de tâches en attente.
+         */
+        private final long queueDepth;
+
+        /**
+         * Le nombre de tâches en cours.
+         */
+        private final long running;
+
+        /**
+         * Le nombre de tâches acceptées.
+         */
+        private final long submitted;
 
+        /**
+         * Le nombre de tâches terminées.
+         */
+        private final long completed;
+
+        /**
+         * Le nombre de tâches en échec.
+         */
+        private final long failed;
+
+        /**
+         * Le nombre de tâches refusées.
+         */
+        private final long rejected;
+
+        /**
+         * Le nombre de tâches exécutées par le thread appelant.
+         */
+        private final long saturated;
+
+        /**
+         * La distribution des temps d'attente.
+         */
+        private final Histogram waitTime;
+
+        /**
+         * La distribution des temps d'exécution.
+         */
+        private final Histogram runTime;
+    
+    
+    
+    //CONSTRUCTOR
+        /**
+         * Crée un relevé des métriques d'une file.
+         * @param queue La file dont on relève les métriques.
+         */
+        private Metrics(QueueThread queue) {
+            this.name       = queue.name;
+            this.queueDepth = queue.getQueueDepth();
+            this.running    = queue.getRunning();
+            this.submitted  = queue.getSubmitted();
+            this.completed  = queue.getCompleted();
+            this.failed     = queue.getFailed();
+            this.rejected   = queue.getRejected();
+            this.saturated  = queue.getSaturated();
+            this.waitTime   = queue.waitTime.copy();
+            this.runTime    = queue.runTime.copy();
+        }
+    
+    
+    
+    //GETTERS
+        /**
+         * Renvoie le nom de la file.
+         * @return Le nom de la file.
+         */
+        public String getName() {
+            return this.name;
+        }
+
+        /**
+         * Renvoie le nombre de tâches en attente.
+         * @return Le nombre de tâches en attente.
+         */
+        public long getQueueDepth() {
+            return this.queueDepth;
+        }
+
+        /**
+         * Renvoie le nombre de tâches en cours.
+         * @return Le nombre de tâches en cours.
+         */
+        public long getRunning() {
+            return this.running;
+        }
+
+        /**
+         * Renvoie le nombre de tâches acceptées.
+         * @return Le nombre de tâches acceptées.
+         */
+        public long getSubmitted() {
+            return this.submitted;
+        }
+
+        /**
+         * Renvoie le nombre de tâches terminées (avec ou sans erreur).
+         * @return Le nombre de tâches terminées.
+         */
+        public long getCompleted() {
+            return this.completed;
+        }
+
+        /**
+         * Renvoie le nombre de tâches terminées par une exception.
+         * @return Le nombre de tâches en échec.
+         */
+        public long getFailed() {
+            return this.failed;
+        }
+
+        /**
+         * Renvoie le nombre de tâches refusées.
+         * @return Le nombre de tâches refusées.
+         */
+        public long getRejected() {
+            return this.rejected;
+        }
+
+        /**
+         * Renvoie le nombre de tâches exécutées par le thread appelant, faute de place dans la file.
+         * @return Le nombre de tâches exécutées par le thread appelant.
+         */
+        public long getSaturated() {
+            return this.saturated;
+        }
+
+        /**
+         * Renvoie la distribution des temps d'attente des tâches avant leur exécution.
+         * @return La distribution des temps d'attente.
+         */
+        public Histogram getWaitTime() {
+            return this.waitTime;
+        }
+
+        /**
+         * Renvoie la distribution des temps d'exécution des tâches.
+         * @return La distribution des temps d'exécution.
+         */
+        public Histogram getRunTime() {
+            return this.runTime;
+        }
+    
     
     
+    //METHODE PUBLIC
+        /**
+         * Renvoie une représentation textuelle du relevé.
+         * @return Une représentation textuelle du relevé.
+         */
+        @Override
+        public String toString() {
+            return String.format(java.util.Locale.ROOT, "%s: depth=%d running=%d submitted=%d completed=%d failed=%d rejected=%d saturated=%d wait[%s] run[%s]", name, queueDepth, running, submitted, completed, failed, rejected, saturated, waitTime, runTime);
+        }
+    
+    
+    
+    }
+
+
+
 }
\ No newline at end of file
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Interface JMX exposant les métriques d'une {@link QueueThread} (visible dans JConsole ou VisualVM sous com.jasonpercus.util:type=QueueThread).
+ * Les durées sont exprimées en millisecondes.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public interface QueueThreadMXBean {
+    
+    
+    
+    /**
+     * Renvoie le nom de la file.
+     * @return Le nom de la file.
+     */
+    public String getName();
+
+    /**
+     * Renvoie le nombre de tâches en attente d'exécution.
+     * @return Le nombre de tâches en attente.
+     */
+    public long getQueueDepth();
+
+    /**
+     * Renvoie le nombre de tâches en cours d'exécution.
+     * @return Le nombre de tâches en cours.
+     */
+    public long getRunning();
+
+    /**
+     * Renvoie le nombre de tâches acceptées par la file.
+     * @return Le nombre de tâches acceptées.
+     */
+    public long getSubmitted();
+
+    /**
+     * Renvoie le nombre de tâches terminées (avec ou sans erreur).
+     * @return Le nombre de tâches terminées.
+     */
+    public long getCompleted();
+
+    /**
+     * Renvoie le nombre de tâches terminées par une exception.
+     * @return Le nombre de tâches en échec.
+     */
+    public long getFailed();
+
+    /**
+     * Renvoie le nombre de tâches refusées par la file (file arrêtée).
+     * @return Le nombre de tâches refusées.
+     */
+    public long getRejected();
+
+    /**
+     * Renvoie le nombre de tâches exécutées directement par le thread qui les soumet, faute de place dans la file (signe de saturation).
+     * @return Le nombre de tâches exécutées par le thread appelant.
+     */
+    public long getSaturated();
+
+    /**
+     * Renvoie le temps d'attente moyen des tâches avant leur exécution.
+     * @return Le temps d'attente moyen.
+     */
+    public double getWaitTimeMean();
+
+    /**
+     * Renvoie le 99e percentile du temps d'attente des tâches avant leur exécution.
+     * @return Le 99e percentile du temps d'attente.
+     */
+    public double getWaitTime99thPercentile();
+
+    /**
+     * Renvoie le plus long temps d'attente d'une tâche avant son exécution.
+     * @return Le plus long temps d'attente.
+     */
+    public double getWaitTimeMax();
+
+    /**
+     * Renvoie le temps d'exécution moyen des tâches.
+     * @return Le temps d'exécution moyen.
+     */
+    public double getRunTimeMean();
+
+    /**
+     * Renvoie le 99e percentile du temps d'exécution des tâches.
+     * @return Le 99e percentile du temps d'exécution.
+     */
+    public double getRunTime99thPercentile();
+
+    /**
+     * Renvoie le plus long temps d'exécution d'une tâche.
+     * @return Le plus long temps d'exécution.
+     */
+    public double getRunTimeMax();
+
+
+
+}
\ No newline at end of file
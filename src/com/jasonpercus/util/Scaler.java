@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe utilitaire pour la réduction d'images de bonne qualité.
+ * Les images dont les pixels sont stockés octet par octet (gris 8 bits des écrans e-ink, BGR, ABGR) sont réduites par moyenne de surface directement sur leur raster, avec un chemin en calculs entiers lorsque le facteur de réduction est entier (cas des miniatures).
+ * Les autres images sont réduites par divisions successives par deux avec interpolation bilinéaire, ce qui évite le crénelage d'un unique {@link java.awt.Graphics2D#drawImage}.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class Scaler {
+    
+    
+    
+//CONSTRUCTOR
+    /**
+     * Constructeur privé pour empêcher l'instanciation de la classe.
+     */
+    private Scaler() {
+
+    }
+    
+    
+    
+//METHODES PUBLICS STATICS
+    /**
+     * Réduit une image aux dimensions spécifiées.
+     * Si l'image doit être agrandie, une simple interpolation bilinéaire est utilisée.
+     *
+     * @param image L'image à réduire.
+     * @param width La largeur de l'image réduite.
+     * @param height La hauteur de l'image réduite.
+     * @return L'image réduite, du même type que l'image d'origine (ou ARGB si son type n'est pas standard ou utilise une palette).
+     */
+    public static java.awt.image.BufferedImage scale(java.awt.image.BufferedImage image, int width, int height) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("The dimensions must be positive");
+        if (width > image.getWidth() || height > image.getHeight())
+            return draw(image, width, height);
+        if (isByteInterleaved(image)) {
+            if (image.getWidth() % width == 0 && image.getHeight() % height == 0)
+                return scaleByteByInteger(image, width, height);
+            return scaleByteArea(image, width, height);
+        }
+        return scaleProgressive(image, width, height);
+    }
+
+    /**
+     * Réduit une image d'un facteur donné.
+     *
+     * @param image L'image à réduire.
+     * @param factor Le facteur de réduction (ex: 6 pour une image six fois plus petite).
+     * @return L'image réduite.
+     */
+    public static java.awt.image.BufferedImage scale(java.awt.image.BufferedImage image, double factor) {
+        return scale(image, Math.max(1, (int) (image.getWidth() / factor)), Math.max(1, (int) (image.getHeight() / factor)));
+    }
+    
+    
+    
+//METHODES PRIVATES STATICS
+    /**
+     * Détermine si les pixels de l'image sont stockés octet par octet, un pixel après l'autre, dans un unique tableau.
+     *
+     * @param image L'image à tester.
+     * @return True si le raster de l'image peut être lu directement, sinon false.
+     */
+    private static boolean isByteInterleaved(java.awt.image.BufferedImage image) {
+        switch (image.getType()) {
+            case java.awt.image.BufferedImage.TYPE_BYTE_GRAY:
+            case java.awt.image.BufferedImage.TYPE_3BYTE_BGR:
+            case java.awt.image.BufferedImage.TYPE_4BYTE_ABGR:
+                java.awt.image.WritableRaster raster = image.getRaster();
+                return raster.getParent() == null && raster.getDataBuffer() instanceof java.awt.image.DataBufferByte && raster.getDataBuffer().getNumBanks() == 1;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Renvoie les octets du raster d'une image sans recopie (voir {@link #isByteInterleaved(java.awt.image.BufferedImage)}).
+     *
+     * @param image L'image.
+     * @return Les octets du raster.
+     */
+    private static byte[] bytes(java.awt.image.BufferedImage image) {
+        return ((java.awt.image.DataBufferByte) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * Crée l'image de destination autour des octets calculés (sans recopie), avec la même disposition des pixels et le même modèle de couleur que l'image d'origine.
+     *
+     * @param image L'image d'origine.
+     * @param width La largeur de l'image de destination.
+     * @param height La hauteur de l'image de destination.
+     * @param datas Les octets de l'image de destination.
+     * @return L'image de destination.
+     */
+    private static java.awt.image.BufferedImage create(java.awt.image.BufferedImage image, int width, int height, byte[] datas) {
+        java.awt.image.ComponentSampleModel sm = (java.awt.image.ComponentSampleModel) image.getSampleModel();
+        int bands = sm.getPixelStride();
+        java.awt.image.WritableRaster raster = java.awt.image.Raster.createInterleavedRaster(new java.awt.image.DataBufferByte(datas, datas.length), width, height, width * bands, bands, sm.getBandOffsets(), null);
+        return new java.awt.image.BufferedImage(image.getColorModel(), raster, image.isAlphaPremultiplied(), null);
+    }
+
+    /**
+     * Réduit une image dont les pixels sont stockés octet par octet d'un facteur entier, en faisant la moyenne de chaque bloc de pixels avec des calculs entiers.
+     * Les lignes source de chaque bloc sont d'abord cumulées colonne par colonne (boucle contiguë, vectorisable par la JVM), puis les colonnes de chaque bloc sont additionnées.
+     * Si l'image possède une couche alpha non prémultipliée, les couleurs sont pondérées par l'alpha afin que les pixels transparents ne déteignent pas.
+     *
+     * @param image L'image à réduire.
+     * @param width La largeur de l'image réduite (diviseur de la largeur d'origine).
+     * @param height La hauteur de l'image réduite (diviseur de la hauteur d'origine).
+     * @return L'image réduite.
+     */
+    private static java.awt.image.BufferedImage scaleByteByInteger(java.awt.image.BufferedImage image, int width, int height) {
+        byte[] src = bytes(image);
+        java.awt.image.ComponentSampleModel sm = (java.awt.image.ComponentSampleModel) image.getSampleModel();
+        int stride = sm.getScanlineStride();
+        int bands  = sm.getPixelStride();
+        java.awt.image.ColorModel cm = image.getColorModel();
+        int alpha  = cm.hasAlpha() && !cm.isAlphaPremultiplied() ? sm.getBandOffsets()[sm.getNumBands() - 1] : -1;
+        int length = image.getWidth() * bands;
+        int fx     = image.getWidth()  / width;
+        int fy     = image.getHeight() / height;
+        int area   = fx * fy;
+        int half   = area / 2;
+
+        byte[] dst  = new byte[width * height * bands];
+        int[] sums  = new int[length];
+        int[] px    = new int[bands];
+        for (int y = 0, o = 0; y < height; y++) {
+            //Cumul vertical des lignes source du bloc
+            java.util.Arrays.fill(sums, 0);
+            for (int sy = y * fy, ey = sy + fy; sy < ey; sy++) {
+                int base = sy * stride;
+                if (alpha < 0) {
+                    for (int i = 0; i < length; i++)
+                        sums[i] += src[base + i] & 0xFF;
+                } else if (bands == 4 && alpha == 0) {
+                    //Cas de TYPE_4BYTE_ABGR
+                    for (int i = 0, p = base; i < length; i += 4, p += 4) {
+                        int a = src[p] & 0xFF;
+                        sums[i]     += a;
+                        sums[i + 1] += (src[p + 1] & 0xFF) * a;
+                        sums[i + 2] += (src[p + 2] & 0xFF) * a;
+                        sums[i + 3] += (src[p + 3] & 0xFF) * a;
+                    }
+                } else {
+                    for (int i = 0; i < length; i += bands) {
+                        int a = src[base + i + alpha] & 0xFF;
+                        for (int b = 0; b < bands; b++)
+                            sums[i + b] += b == alpha ? a : (src[base + i + b] & 0xFF) * a;
+                    }
+                }
+            }
+            //Somme horizontale des colonnes du bloc
+            if (bands == 1) {
+                for (int x = 0, i = 0; x < width; x++) {
+                    int sum = 0;
+                    for (int k = 0; k < fx; k++)
+                        sum += sums[i++];
+                    dst[o++] = (byte) ((sum + half) / area);
+                }
+            } else {
+                for (int x = 0, i = 0; x < width; x++, o += bands) {
+                    java.util.Arrays.fill(px, 0);
+                    for (int k = 0; k < fx; k++) {
+                        for (int b = 0; b < bands; b++)
+                            px[b] += sums[i++];
+                    }
+                    if (alpha < 0) {
+                        for (int b = 0; b < bands; b++)
+                            dst[o + b] = (byte) ((px[b] + half) / area);
+                    } else {
+                        int a = px[alpha];
+                        for (int b = 0; b < bands; b++)
+                            dst[o + b] = (byte) (b == alpha ? (a + half) / area : (a > 0 ? (px[b] + a / 2) / a : 0));
+                    }
+                }
+            }
+        }
+        return create(image, width, height, dst);
+    }
+
+    /**
+     * Réduit une image dont les pixels sont stockés octet par octet en faisant la moyenne de la surface de l'image d'origine couverte par chaque pixel de destination (facteur quelconque).
+     * Chaque ligne de destination est obtenue en cumulant d'abord les lignes source qu'elle recouvre (boucle contiguë sur les octets), puis en réduisant horizontalement ce cumul.
+     * Si l'image possède une couche alpha non prémultipliée, les couleurs sont pondérées par l'alpha afin que les pixels transparents ne déteignent pas.
+     *
+     * @param image L'image à réduire.
+     * @param width La largeur de l'image réduite.
+     * @param height La hauteur de l'image réduite.
+     * @return L'image réduite.
+     */
+    private static java.awt.image.BufferedImage scaleByteArea(java.awt.image.BufferedImage image, int width, int height) {
+        byte[] src = bytes(image);
+        java.awt.image.ComponentSampleModel sm = (java.awt.image.ComponentSampleModel) image.getSampleModel();
+        int stride = sm.getScanlineStride();
+        int bands  = sm.getPixelStride();
+        java.awt.image.ColorModel cm = image.getColorModel();
+        int alpha  = cm.hasAlpha() && !cm.isAlphaPremultiplied() ? sm.getBandOffsets()[sm.getNumBands() - 1] : -1;
+        int length = image.getWidth() * bands;
+
+        int[][] xIndex = new int[width][];
+        float[][] xWeight = new float[width][];
+        contributions(image.getWidth(), width, xIndex, xWeight);
+        int[][] yIndex = new int[height][];
+        float[][] yWeight = new float[height][];
+        contributions(image.getHeight(), height, yIndex, yWeight);
+
+        byte[] dst = new byte[width * height * bands];
+        float[] acc = new float[length];
+        float[] px  = new float[bands];
+        for (int y = 0, o = 0; y < height; y++) {
+            //Cumul vertical des lignes source
+            java.util.Arrays.fill(acc, 0f);
+            for (int j = 0; j < yIndex[y].length; j++) {
+                int base = yIndex[y][j] * stride;
+                float w = yWeight[y][j];
+                if (alpha < 0) {
+                    for (int i = 0; i < length; i++)
+                        acc[i] += (src[base + i] & 0xFF) * w;
+                } else if (bands == 4 && alpha == 0) {
+                    //Cas de TYPE_4BYTE_ABGR
+                    for (int i = 0, p = base; i < length; i += 4, p += 4) {
+                        float a = (src[p] & 0xFF) * w;
+                        acc[i]     += a;
+                        acc[i + 1] += (src[p + 1] & 0xFF) * a;
+                        acc[i + 2] += (src[p + 2] & 0xFF) * a;
+                        acc[i + 3] += (src[p + 3] & 0xFF) * a;
+                    }
+                } else {
+                    for (int i = 0; i < length; i += bands) {
+                        float a = (src[base + i + alpha] & 0xFF) * w;
+                        for (int b = 0; b < bands; b++)
+                            acc[i + b] += b == alpha ? a : (src[base + i + b] & 0xFF) * a;
+                    }
+                }
+            }
+            //Réduction horizontale du cumul
+            for (int x = 0; x < width; x++, o += bands) {
+                int[] idx = xIndex[x];
+                float[] wgt = xWeight[x];
+                java.util.Arrays.fill(px, 0f);
+                if (bands == 1) {
+                    float sum = 0f;
+                    for (int k = 0; k < idx.length; k++)
+                        sum += acc[idx[k]] * wgt[k];
+                    px[0] = sum;
+                } else {
+                    for (int k = 0; k < idx.length; k++) {
+                        int p = idx[k] * bands;
+                        float w = wgt[k];
+                        for (int b = 0; b < bands; b++)
+                            px[b] += acc[p + b] * w;
+                    }
+                }
+                if (alpha < 0) {
+                    for (int b = 0; b < bands; b++)
+                        dst[o + b] = (byte) clamp(px[b]);
+                } else {
+                    float a = px[alpha];
+                    for (int b = 0; b < bands; b++)
+                        dst[o + b] = (byte) clamp(b == alpha ? a : (a > 0f ? px[b] / a : 0f));
+                }
+            }
+        }
+        return create(image, width, height, dst);
+    }
+
+    /**
+     * Calcule, pour chaque pixel de destination, les pixels source qu'il recouvre et la proportion de chacun d'eux (la somme des proportions vaut 1).
+     *
+     * @param srcLength Le nombre de pixels source.
+     * @param dstLength Le nombre de pixels de destination.
+     * @param indexes Le tableau qui reçoit les index des pixels source de chaque pixel de destination.
+     * @param weights Le tableau qui reçoit les proportions des pixels source de chaque pixel de destination.
+     */
+    private static void contributions(int srcLength, int dstLength, int[][] indexes, float[][] weights) {
+        double scale = (double) srcLength / dstLength;
+        for (int d = 0; d < dstLength; d++) {
+            double start = d * scale;
+            double end   = Math.min(srcLength, (d + 1) * scale);
+            int first = (int) Math.floor(start);
+            int last  = Math.min(srcLength - 1, (int) Math.ceil(end) - 1);
+            int count = last - first + 1;
+            indexes[d] = new int[count];
+            weights[d] = new float[count];
+            for (int k = 0; k < count; k++) {
+                int i = first + k;
+                double overlap = Math.min(end, i + 1) - Math.max(start, i);
+                indexes[d][k] = i;
+                weights[d][k] = (float) (overlap / (end - start));
+            }
+        }
+    }
+
+    /**
+     * Arrondit et borne une valeur dans l'intervalle [0, 255].
+     *
+     * @param value La valeur.
+     * @return La valeur arrondie et bornée.
+     */
+    private static int clamp(float value) {
+        int v = Math.round(value);
+        return v < 0 ? 0 : (v > 255 ? 255 : v);
+    }
+
+    /**
+     * Réduit une image par divisions successives par deux (interpolation bilinéaire), puis termine par une dernière interpolation bilinéaire aux dimensions voulues.
+     *
+     * @param image L'image à réduire.
+     * @param width La largeur de l'image réduite.
+     * @param height La hauteur de l'image réduite.
+     * @return L'image réduite.
+     */
+    private static java.awt.image.BufferedImage scaleProgressive(java.awt.image.BufferedImage image, int width, int height) {
+        java.awt.image.BufferedImage current = image;
+        int w = image.getWidth();
+        int h = image.getHeight();
+        while (w / 2 >= width && h / 2 >= height) {
+            w /= 2;
+            h /= 2;
+            current = draw(current, w, h);
+        }
+        if (w != width || h != height)
+            current = draw(current, width, height);
+        return current;
+    }
+
+    /**
+     * Redimensionne une image en une seule passe avec une interpolation bilinéaire.
+     *
+     * @param image L'image à redimensionner.
+     * @param width La largeur de l'image redimensionnée.
+     * @param height La hauteur de l'image redimensionnée.
+     * @return L'image redimensionnée.
+     */
+    private static java.awt.image.BufferedImage draw(java.awt.image.BufferedImage image, int width, int height) {
+        int type = image.getType();
+        if (type == java.awt.image.BufferedImage.TYPE_CUSTOM || type == java.awt.image.BufferedImage.TYPE_BYTE_INDEXED || type == java.awt.image.BufferedImage.TYPE_BYTE_BINARY)
+            type = java.awt.image.BufferedImage.TYPE_INT_ARGB;
+        java.awt.image.BufferedImage result = new java.awt.image.BufferedImage(width, height, type);
+        java.awt.Graphics2D g = result.createGraphics();
+        g.setRenderingHint(java.awt.RenderingHints.KEY_INTERPOLATION, java.awt.RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(java.awt.RenderingHints.KEY_RENDERING, java.awt.RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return result;
+    }
+
+
+
+}
\ No newline at end of file
@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) JasonPercus Systems, Inc - All Rights Reserved
+ *
+ * Unauthorized copying of this file, via any medium is strictly prohibited
+ * Proprietary and confidential
+ *
+ * Written by JasonPercus, 04/2024
+ */
+package com.jasonpercus.util;
+
+
+
+/**
+ * Classe pour l'exécution de chaque tâche dans son propre thread virtuel.
+ * Les threads virtuels conviennent aux tâches qui passent l'essentiel de leur temps à attendre le réseau (transferts SFTP). Ils sont obtenus par réflexion car ils n'existent qu'à partir de Java 21 : sur une JVM plus ancienne, chaque tâche est exécutée par un thread démon classique, réutilisé d'une tâche à l'autre.
+ * L'ordre d'exécution des tâches n'est pas garanti.
+ * @author JasonPercus
+ * @version 1.0
+ */
+public class VirtualThread extends QueueThread {
+    
+    
+    
+//ATTRIBUT
+    /**
+     * Détermine si les tâches sont réellement exécutées par des threads virtuels.
+     */
+    private final boolean virtual;
+    
+    
+    
+//CONSTRUCTORS
+    /**
+     * Constructeur qui initialise l'exécuteur.
+     * @param name Le préfixe du nom des threads.
+     */
+    public VirtualThread(String name) {
+        this(name, create(name));
+    }
+
+    /**
+     * Constructeur privé qui reçoit l'ExecutorService créé.
+     * @param name Le préfixe du nom des threads.
+     * @param executor L'ExecutorService de threads virtuels, ou null s'ils ne sont pas disponibles.
+     */
+    private VirtualThread(String name, java.util.concurrent.ExecutorService executor) {
+        super(name, executor != null ? executor : fallback(name));
+        this.virtual = executor != null;
+    }
+    
+    
+    
+//GETTER
+    /**
+     * Détermine si les tâches sont réellement exécutées par des threads virtuels.
+     * @return True si la JVM supporte les threads virtuels, sinon false.
+     */
+    public boolean isVirtual() {
+        return this.virtual;
+    }
+    
+    
+    
+//METHODES PRIVATES STATICS
+    /**
+     * Crée un ExecutorService qui démarre un thread virtuel par tâche (Thread.ofVirtual().name(name, 1).factory() puis Executors.newThreadPerTaskExecutor).
+     * @param name Le préfixe du nom des threads.
+     * @return L'ExecutorService, ou null si la JVM ne supporte pas les threads virtuels.
+     */
+    private static java.util.concurrent.ExecutorService create(String name) {
+        try {
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            java.util.concurrent.ThreadFactory factory = (java.util.concurrent.ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+            return (java.util.concurrent.ExecutorService) java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", java.util.concurrent.ThreadFactory.class).invoke(null, factory);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Crée l'ExecutorService de repli, utilisé lorsque les threads virtuels ne sont pas disponibles.
+     * @param name Le préfixe du nom des threads.
+     * @return Un pool de threads démons créés à la demande.
+     */
+    private static java.util.concurrent.ExecutorService fallback(String name) {
+        java.util.concurrent.atomic.AtomicInteger count = new java.util.concurrent.atomic.AtomicInteger();
+        return java.util.concurrent.Executors.newCachedThreadPool((Runnable r) -> {
+            Thread thread = new Thread(r, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+
+
+}
\ No newline at end of file